@@ -0,0 +1,268 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash set of primitive ints using open addressing, so that no element is
+ * boxed when stored.
+ *
+ * The set implements {@link java.util.Set} of Integers for compatibility;
+ * the boxed methods delegate to the primitive ones. Its iterator does not
+ * support removal, and the set must not be modified during iteration.
+ */
+public final class IntHashSet extends AbstractSet<Integer> {
+  /**
+   * Marks free slots. Membership of the value itself is kept in {@link #containsFree}.
+   */
+  private static final int FREE = 0;
+
+  private int[] keys;
+  private boolean containsFree = false;
+  private int size = 0;
+
+  /**
+   * Sum of the elements, which is the hash code of the set.
+   */
+  private int hash = 0;
+
+  public IntHashSet() {
+    keys = new int[IntHashing.MIN_CAPACITY];
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * @param pOther Original set
+   */
+  public IntHashSet(final IntHashSet pOther) {
+    keys = pOther.keys.clone();
+    containsFree = pOther.containsFree;
+    size = pOther.size;
+    hash = pOther.hash;
+  }
+
+  private int findSlot(final int pKey) {
+    int mask = keys.length - 1;
+    int slot = IntHashing.slot(pKey, mask);
+    while (keys[slot] != FREE && keys[slot] != pKey) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * @param pKey Element to add
+   * @return True if the set did not contain {@link pKey}
+   */
+  public boolean add(final int pKey) {
+    if (pKey == FREE) {
+      if (containsFree) {
+        return false;
+      }
+      containsFree = true;
+      size++;
+      return true;
+    }
+
+    int slot = findSlot(pKey);
+    if (keys[slot] == pKey) {
+      return false;
+    }
+    keys[slot] = pKey;
+    size++;
+    hash += pKey;
+    if (IntHashing.isOverloaded(size, keys.length)) {
+      rehash(keys.length * 2);
+    }
+    return true;
+  }
+
+  /**
+   * @param pKey Element to look for
+   * @return True if the set contains {@link pKey}
+   */
+  public boolean contains(final int pKey) {
+    if (pKey == FREE) {
+      return containsFree;
+    }
+    return keys[findSlot(pKey)] == pKey;
+  }
+
+  /**
+   * @param pKey Element to remove
+   * @return True if the set contained {@link pKey}
+   */
+  public boolean remove(final int pKey) {
+    if (pKey == FREE) {
+      if (!containsFree) {
+        return false;
+      }
+      containsFree = false;
+      size--;
+      return true;
+    }
+
+    int slot = findSlot(pKey);
+    if (keys[slot] != pKey) {
+      return false;
+    }
+    int mask = keys.length - 1;
+    int free = slot;
+    for (int next = (free + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+      if (IntHashing.canShift(free, next, IntHashing.slot(keys[next], mask), mask)) {
+        keys[free] = keys[next];
+        free = next;
+      }
+    }
+    keys[free] = FREE;
+    size--;
+    hash -= pKey;
+    return true;
+  }
+
+  private void rehash(final int pCapacity) {
+    int[] oldKeys = keys;
+    keys = new int[pCapacity];
+    int mask = pCapacity - 1;
+    for (int key : oldKeys) {
+      if (key != FREE) {
+        int slot = IntHashing.slot(key, mask);
+        while (keys[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+      }
+    }
+  }
+
+  /**
+   * @return A new array containing all elements of the set
+   */
+  public int[] toIntArray() {
+    int[] result = new int[size];
+    int i = 0;
+    if (containsFree) {
+      result[i++] = FREE;
+    }
+    for (int key : keys) {
+      if (key != FREE) {
+        result[i++] = key;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean add(final Integer pKey) {
+    return add(pKey.intValue());
+  }
+
+  @Override
+  public boolean contains(final Object pKey) {
+    return (pKey instanceof Integer) && contains(((Integer) pKey).intValue());
+  }
+
+  @Override
+  public boolean remove(final Object pKey) {
+    return (pKey instanceof Integer) && remove(((Integer) pKey).intValue());
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    keys = new int[IntHashing.MIN_CAPACITY];
+    containsFree = false;
+    size = 0;
+    hash = 0;
+  }
+
+  @Override
+  public Iterator<Integer> iterator() {
+    return new Iterator<Integer>() {
+      private boolean freePending = containsFree;
+      private int slot = nextOccupied(0);
+
+      private int nextOccupied(final int pFrom) {
+        int i = pFrom;
+        while (i < keys.length && keys[i] == FREE) {
+          i++;
+        }
+        return i;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return freePending || slot < keys.length;
+      }
+
+      @Override
+      public Integer next() {
+        if (freePending) {
+          freePending = false;
+          return FREE;
+        }
+        if (slot >= keys.length) {
+          throw new NoSuchElementException();
+        }
+        int key = keys[slot];
+        slot = nextOccupied(slot + 1);
+        return key;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("IntHashSet iterator does not support removal");
+      }
+    };
+  }
+
+  @Override
+  public int hashCode() {
+    // Same as the hash code of a set of Integers with the same elements
+    return hash;
+  }
+
+  @Override
+  public boolean equals(final Object pOther) {
+    if (!(pOther instanceof IntHashSet)) {
+      return super.equals(pOther);
+    }
+    IntHashSet other = (IntHashSet) pOther;
+    if (size != other.size || hash != other.hash || containsFree != other.containsFree) {
+      return false;
+    }
+    for (int key : keys) {
+      if (key != FREE && !other.contains(key)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
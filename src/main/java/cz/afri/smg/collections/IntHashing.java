@@ -0,0 +1,71 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+/**
+ * Helpers shared by the open-addressing int collections. All of them use
+ * linear probing in power-of-two sized tables, and backward shift deletion
+ * instead of tombstones.
+ */
+final class IntHashing {
+  static final int MIN_CAPACITY = 4;
+
+  private static final int GOLDEN_RATIO = 0x9E3779B9;
+  private static final int HALF_INT_BITS = 16;
+  private static final int LOAD_NUMERATOR = 3;
+  private static final int LOAD_DENOMINATOR = 4;
+
+  private IntHashing() { }
+
+  /**
+   * @param pKey A key
+   * @param pMask Table size minus one
+   * @return Home slot of {@link pKey}
+   */
+  static int slot(final int pKey, final int pMask) {
+    int h = pKey * GOLDEN_RATIO;
+    return (h ^ (h >>> HALF_INT_BITS)) & pMask;
+  }
+
+  /**
+   * @param pSize Number of occupied slots after an insertion
+   * @param pCapacity Table size
+   * @return True if the table is too full and has to grow
+   */
+  static boolean isOverloaded(final int pSize, final int pCapacity) {
+    return pSize * LOAD_DENOMINATOR > pCapacity * LOAD_NUMERATOR;
+  }
+
+  /**
+   * Decides whether an entry may be shifted back into a freed slot during
+   * backward shift deletion, without becoming unreachable from its home slot.
+   *
+   * @param pFree The freed slot
+   * @param pSlot Current slot of the entry
+   * @param pHome Home slot of the entry
+   * @param pMask Table size minus one
+   * @return True if the entry may be moved to {@link pFree}
+   */
+  static boolean canShift(final int pFree, final int pSlot, final int pHome, final int pMask) {
+    return ((pSlot - pHome) & pMask) >= ((pSlot - pFree) & pMask);
+  }
+}
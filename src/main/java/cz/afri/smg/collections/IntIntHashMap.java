@@ -0,0 +1,229 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+/**
+ * A hash map from primitive ints to primitive ints using open addressing, so
+ * that neither keys nor values are boxed when stored.
+ */
+public final class IntIntHashMap {
+  /**
+   * Marks free slots. A mapping of the key itself is kept in
+   * {@link #containsFreeKey} and {@link #freeKeyValue}.
+   */
+  private static final int FREE = 0;
+
+  private int[] keys;
+  private int[] values;
+  private boolean containsFreeKey = false;
+  private int freeKeyValue;
+  private int size = 0;
+
+  public IntIntHashMap() {
+    keys = new int[IntHashing.MIN_CAPACITY];
+    values = new int[IntHashing.MIN_CAPACITY];
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * @param pOther Original map
+   */
+  public IntIntHashMap(final IntIntHashMap pOther) {
+    keys = pOther.keys.clone();
+    values = pOther.values.clone();
+    containsFreeKey = pOther.containsFreeKey;
+    freeKeyValue = pOther.freeKeyValue;
+    size = pOther.size;
+  }
+
+  private int findSlot(final int pKey) {
+    int mask = keys.length - 1;
+    int slot = IntHashing.slot(pKey, mask);
+    while (keys[slot] != FREE && keys[slot] != pKey) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * @param pKey Key to look for
+   * @param pDefault Value returned if there is no mapping for {@link pKey}
+   * @return Value mapped to {@link pKey}, or {@link pDefault}
+   */
+  public int get(final int pKey, final int pDefault) {
+    if (pKey == FREE) {
+      return containsFreeKey ? freeKeyValue : pDefault;
+    }
+    int slot = findSlot(pKey);
+    return keys[slot] == pKey ? values[slot] : pDefault;
+  }
+
+  /**
+   * @param pKey Key to look for
+   * @return True if there is a mapping for {@link pKey}
+   */
+  public boolean containsKey(final int pKey) {
+    if (pKey == FREE) {
+      return containsFreeKey;
+    }
+    return keys[findSlot(pKey)] == pKey;
+  }
+
+  /**
+   * Maps {@link pKey} to {@link pValue}, replacing any previous mapping.
+   *
+   * @param pKey Key
+   * @param pValue Value
+   */
+  public void put(final int pKey, final int pValue) {
+    if (pKey == FREE) {
+      if (!containsFreeKey) {
+        containsFreeKey = true;
+        size++;
+      }
+      freeKeyValue = pValue;
+      return;
+    }
+
+    int slot = findSlot(pKey);
+    values[slot] = pValue;
+    if (keys[slot] == pKey) {
+      return;
+    }
+    keys[slot] = pKey;
+    size++;
+    if (IntHashing.isOverloaded(size, keys.length)) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  /**
+   * @param pKey Key of the mapping to remove
+   * @return True if there was a mapping for {@link pKey}
+   */
+  public boolean remove(final int pKey) {
+    if (pKey == FREE) {
+      if (!containsFreeKey) {
+        return false;
+      }
+      containsFreeKey = false;
+      size--;
+      return true;
+    }
+
+    int slot = findSlot(pKey);
+    if (keys[slot] != pKey) {
+      return false;
+    }
+    int mask = keys.length - 1;
+    int free = slot;
+    for (int next = (free + 1) & mask; keys[next] != FREE; next = (next + 1) & mask) {
+      if (IntHashing.canShift(free, next, IntHashing.slot(keys[next], mask), mask)) {
+        keys[free] = keys[next];
+        values[free] = values[next];
+        free = next;
+      }
+    }
+    keys[free] = FREE;
+    size--;
+    return true;
+  }
+
+  private void rehash(final int pCapacity) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new int[pCapacity];
+    values = new int[pCapacity];
+    int mask = pCapacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int slot = IntHashing.slot(oldKeys[i], mask);
+        while (keys[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    // Same as the hash code of a map of Integers with the same mappings
+    int hash = containsFreeKey ? (FREE ^ freeKeyValue) : 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != FREE) {
+        hash += keys[i] ^ values[i];
+      }
+    }
+    return hash;
+  }
+
+  @Override
+  public boolean equals(final Object pOther) {
+    if (!(pOther instanceof IntIntHashMap)) {
+      return false;
+    }
+    IntIntHashMap other = (IntIntHashMap) pOther;
+    if (size != other.size || containsFreeKey != other.containsFreeKey) {
+      return false;
+    }
+    if (containsFreeKey && freeKeyValue != other.freeKeyValue) {
+      return false;
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != FREE) {
+        int slot = other.findSlot(keys[i]);
+        if (other.keys[slot] != keys[i] || other.values[slot] != values[i]) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    String separator = "";
+    if (containsFreeKey) {
+      sb.append(FREE).append('=').append(freeKeyValue);
+      separator = ", ";
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != FREE) {
+        sb.append(separator).append(keys[i]).append('=').append(values[i]);
+        separator = ", ";
+      }
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A set multimap from primitive ints to primitive ints: each key maps to an
+ * {@link IntHashSet} of values. Keys are stored in an open-addressing table,
+ * and keys without values are removed.
+ */
+public final class IntSetMultimap {
+  private int[] keys;
+
+  /**
+   * Values of the key in the same slot, null for free slots.
+   */
+  private IntHashSet[] sets;
+  private int keyCount = 0;
+  private int size = 0;
+
+  /**
+   * Sum over keys of the key xor the hash code of its values, which is the
+   * hash code of the multimap.
+   */
+  private int hash = 0;
+
+  public IntSetMultimap() {
+    keys = new int[IntHashing.MIN_CAPACITY];
+    sets = new IntHashSet[IntHashing.MIN_CAPACITY];
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * @param pOther Original multimap
+   */
+  public IntSetMultimap(final IntSetMultimap pOther) {
+    keys = pOther.keys.clone();
+    sets = new IntHashSet[pOther.sets.length];
+    for (int i = 0; i < sets.length; i++) {
+      if (pOther.sets[i] != null) {
+        sets[i] = new IntHashSet(pOther.sets[i]);
+      }
+    }
+    keyCount = pOther.keyCount;
+    size = pOther.size;
+    hash = pOther.hash;
+  }
+
+  private int findSlot(final int pKey) {
+    int mask = keys.length - 1;
+    int slot = IntHashing.slot(pKey, mask);
+    while (sets[slot] != null && keys[slot] != pKey) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * @param pKey Key
+   * @param pValue Value
+   * @return True if the multimap did not contain the entry
+   */
+  public boolean put(final int pKey, final int pValue) {
+    int slot = findSlot(pKey);
+    if (sets[slot] == null) {
+      keys[slot] = pKey;
+      sets[slot] = new IntHashSet();
+      keyCount++;
+      sets[slot].add(pValue);
+      size++;
+      hash += pKey ^ pValue;
+      if (IntHashing.isOverloaded(keyCount, keys.length)) {
+        rehash(keys.length * 2);
+      }
+      return true;
+    }
+
+    int oldHash = sets[slot].hashCode();
+    if (sets[slot].add(pValue)) {
+      size++;
+      hash += (pKey ^ sets[slot].hashCode()) - (pKey ^ oldHash);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Adds all entries of {@link pOther} to this multimap.
+   *
+   * @param pOther Source of the entries
+   */
+  public void putAll(final IntSetMultimap pOther) {
+    for (int i = 0; i < pOther.sets.length; i++) {
+      if (pOther.sets[i] != null) {
+        for (int value : pOther.sets[i].toIntArray()) {
+          put(pOther.keys[i], value);
+        }
+      }
+    }
+  }
+
+  /**
+   * @param pKey Key
+   * @param pValue Value
+   * @return True if the multimap contains the entry
+   */
+  public boolean containsEntry(final int pKey, final int pValue) {
+    IntHashSet values = sets[findSlot(pKey)];
+    return values != null && values.contains(pValue);
+  }
+
+  /**
+   * @param pKey Key
+   * @return Unmodifiable view on values of {@link pKey}. The view of a key
+   * without values is empty and stays empty.
+   */
+  public Set<Integer> get(final int pKey) {
+    IntHashSet values = sets[findSlot(pKey)];
+    if (values == null) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableSet(values);
+  }
+
+  /**
+   * @param pKey Key
+   * @return A new array with the values of {@link pKey}
+   */
+  public int[] getValues(final int pKey) {
+    IntHashSet values = sets[findSlot(pKey)];
+    if (values == null) {
+      return new int[0];
+    }
+    return values.toIntArray();
+  }
+
+  /**
+   * @param pKey Key
+   * @param pValue Value
+   * @return True if the multimap contained the entry
+   */
+  public boolean remove(final int pKey, final int pValue) {
+    int slot = findSlot(pKey);
+    IntHashSet values = sets[slot];
+    if (values == null) {
+      return false;
+    }
+    int oldHash = values.hashCode();
+    if (!values.remove(pValue)) {
+      return false;
+    }
+    size--;
+    hash -= pKey ^ oldHash;
+    if (values.isEmpty()) {
+      removeSlot(slot);
+    } else {
+      hash += pKey ^ values.hashCode();
+    }
+    return true;
+  }
+
+  /**
+   * Removes all values of {@link pKey}.
+   *
+   * @param pKey Key
+   */
+  public void removeAll(final int pKey) {
+    int slot = findSlot(pKey);
+    if (sets[slot] != null) {
+      size -= sets[slot].size();
+      hash -= pKey ^ sets[slot].hashCode();
+      removeSlot(slot);
+    }
+  }
+
+  private void removeSlot(final int pSlot) {
+    int mask = keys.length - 1;
+    int free = pSlot;
+    for (int next = (free + 1) & mask; sets[next] != null; next = (next + 1) & mask) {
+      if (IntHashing.canShift(free, next, IntHashing.slot(keys[next], mask), mask)) {
+        keys[free] = keys[next];
+        sets[free] = sets[next];
+        free = next;
+      }
+    }
+    sets[free] = null;
+    keyCount--;
+  }
+
+  private void rehash(final int pCapacity) {
+    int[] oldKeys = keys;
+    IntHashSet[] oldSets = sets;
+    keys = new int[pCapacity];
+    sets = new IntHashSet[pCapacity];
+    int mask = pCapacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldSets[i] != null) {
+        int slot = IntHashing.slot(oldKeys[i], mask);
+        while (sets[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        sets[slot] = oldSets[i];
+      }
+    }
+  }
+
+  /**
+   * @return Number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    // Same as the hash code of a set multimap of Integers with the same entries
+    return hash;
+  }
+
+  @Override
+  public boolean equals(final Object pOther) {
+    if (!(pOther instanceof IntSetMultimap)) {
+      return false;
+    }
+    IntSetMultimap other = (IntSetMultimap) pOther;
+    if (size != other.size || hash != other.hash || keyCount != other.keyCount) {
+      return false;
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (sets[i] != null && !sets[i].equals(other.sets[other.findSlot(keys[i])])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    String separator = "";
+    for (int i = 0; i < keys.length; i++) {
+      if (sets[i] != null) {
+        sb.append(separator).append(keys[i]).append('=').append(sets[i]);
+        separator = ", ";
+      }
+    }
+    return sb.append('}').toString();
+  }
+}
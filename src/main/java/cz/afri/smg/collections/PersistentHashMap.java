@@ -0,0 +1,526 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable hash map with structural sharing (a hash array mapped trie).
+ *
+ * Modifying operations do not change the map, they return a new map sharing
+ * all unchanged parts of the trie with the original one. Both lookups and
+ * modifications take O(log32 n) time, and obtaining a copy of a map is free:
+ * the map itself can be shared. The hash code is maintained by every
+ * modification, so obtaining it takes constant time.
+ *
+ * The map implements {@link Map} for reading, so it can be passed wherever an
+ * unmodifiable map is expected. Null keys and values are not permitted.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  private static final int HALF_INT_BITS = 16;
+
+  private static final PersistentHashMap<Object, Object> EMPTY =
+      new PersistentHashMap<>(new BitmapNode(0, new Object[0]), 0, 0, 0);
+
+  private final BitmapNode root;
+  private final int size;
+
+  /**
+   * Sum of hash codes of the keys, maintained by each modification.
+   */
+  private final int keyHash;
+
+  /**
+   * Sum of hash codes of the entries, which is the hash code of the map.
+   */
+  private final int entryHash;
+
+  private PersistentHashMap(final BitmapNode pRoot, final int pSize, final int pKeyHash, final int pEntryHash) {
+    root = pRoot;
+    size = pSize;
+    keyHash = pKeyHash;
+    entryHash = pEntryHash;
+  }
+
+  /**
+   * @return An empty map
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Creates a map with the same mappings as {@link pMap}.
+   *
+   * @param pMap Source of the mappings
+   * @return A new map
+   */
+  public static <K, V> PersistentHashMap<K, V> copyOf(final Map<? extends K, ? extends V> pMap) {
+    PersistentHashMap<K, V> result = empty();
+    for (Map.Entry<? extends K, ? extends V> entry : pMap.entrySet()) {
+      result = result.plus(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  private static int hash(final Object pKey) {
+    int h = pKey.hashCode();
+    return h ^ (h >>> HALF_INT_BITS);
+  }
+
+  private static int fragment(final int pHash, final int pShift) {
+    return (pHash >>> pShift) & MASK;
+  }
+
+  /**
+   * Returns a map with {@link pKey} mapped to {@link pValue}. If the mapping
+   * is already present, this map is returned.
+   *
+   * @param pKey Key
+   * @param pValue Value
+   * @return A map containing the mapping
+   */
+  public PersistentHashMap<K, V> plus(final K pKey, final V pValue) {
+    if (pKey == null || pValue == null) {
+      throw new NullPointerException("PersistentHashMap does not permit null keys or values");
+    }
+
+    Leaf leaf = new Leaf(pKey, pValue, hash(pKey));
+    Change change = new Change();
+    BitmapNode newRoot = (BitmapNode) root.put(leaf, 0, change);
+    if (newRoot == root) {
+      return this;
+    }
+
+    if (change.old == null) {
+      return new PersistentHashMap<>(newRoot, size + 1, keyHash + pKey.hashCode(), entryHash + leaf.hashCode());
+    }
+    return new PersistentHashMap<>(newRoot, size, keyHash, entryHash - change.old.hashCode() + leaf.hashCode());
+  }
+
+  /**
+   * Returns a map without a mapping for {@link pKey}. If there is no such
+   * mapping, this map is returned.
+   *
+   * @param pKey Key
+   * @return A map not containing the key
+   */
+  public PersistentHashMap<K, V> minus(final Object pKey) {
+    if (pKey == null) {
+      return this;
+    }
+
+    Change change = new Change();
+    Object newRoot = root.remove(pKey, hash(pKey), 0, change);
+    if (newRoot == root) {
+      return this;
+    }
+
+    if (size == 1) {
+      return empty();
+    }
+    return new PersistentHashMap<>((BitmapNode) newRoot, size - 1, keyHash - change.old.getKey().hashCode(),
+                                   entryHash - change.old.hashCode());
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(final Object pKey) {
+    if (pKey == null) {
+      return null;
+    }
+    return (V) root.get(pKey, hash(pKey), 0);
+  }
+
+  @Override
+  public boolean containsKey(final Object pKey) {
+    return get(pKey) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return Sum of hash codes of the keys
+   */
+  int keyHashCode() {
+    return keyHash;
+  }
+
+  @Override
+  public int hashCode() {
+    return entryHash;
+  }
+
+  @Override
+  public boolean equals(final Object pOther) {
+    if (pOther instanceof PersistentHashMap) {
+      PersistentHashMap<?, ?> other = (PersistentHashMap<?, ?>) pOther;
+      if (other.size != size || other.entryHash != entryHash) {
+        return false;
+      }
+    }
+    return super.equals(pOther);
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new TrieIterator<>(root);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * An immutable key-value pair stored in the trie.
+   */
+  private static final class Leaf extends AbstractMap.SimpleImmutableEntry<Object, Object> {
+    private static final long serialVersionUID = 1L;
+    private final int hash;
+
+    Leaf(final Object pKey, final Object pValue, final int pHash) {
+      super(pKey, pValue);
+      hash = pHash;
+    }
+  }
+
+  /**
+   * Records the mapping replaced or removed by a modification of the trie.
+   */
+  private static final class Change {
+    private Leaf old;
+  }
+
+  /**
+   * Interior trie node. Removal returns either a node, a single {@link Leaf}
+   * the node collapsed to, or null if the node became empty.
+   */
+  private abstract static class Node {
+    abstract Object get(Object pKey, int pHash, int pShift);
+
+    abstract Node put(Leaf pLeaf, int pShift, Change pChange);
+
+    abstract Object remove(Object pKey, int pHash, int pShift, Change pChange);
+  }
+
+  private static final class BitmapNode extends Node {
+    private final int bitmap;
+    private final Object[] children;
+
+    BitmapNode(final int pBitmap, final Object[] pChildren) {
+      bitmap = pBitmap;
+      children = pChildren;
+    }
+
+    private int index(final int pBit) {
+      return Integer.bitCount(bitmap & (pBit - 1));
+    }
+
+    @Override
+    Object get(final Object pKey, final int pHash, final int pShift) {
+      int bit = 1 << fragment(pHash, pShift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+
+      Object child = children[index(bit)];
+      if (child instanceof Leaf) {
+        Leaf leaf = (Leaf) child;
+        if (leaf.getKey().equals(pKey)) {
+          return leaf.getValue();
+        }
+        return null;
+      }
+      return ((Node) child).get(pKey, pHash, pShift + BITS);
+    }
+
+    @Override
+    Node put(final Leaf pLeaf, final int pShift, final Change pChange) {
+      int bit = 1 << fragment(pLeaf.hash, pShift);
+      int idx = index(bit);
+
+      if ((bitmap & bit) == 0) {
+        Object[] newChildren = new Object[children.length + 1];
+        System.arraycopy(children, 0, newChildren, 0, idx);
+        newChildren[idx] = pLeaf;
+        System.arraycopy(children, idx, newChildren, idx + 1, children.length - idx);
+        return new BitmapNode(bitmap | bit, newChildren);
+      }
+
+      Object child = children[idx];
+      Object newChild;
+      if (child instanceof Leaf) {
+        Leaf leaf = (Leaf) child;
+        if (leaf.getKey().equals(pLeaf.getKey())) {
+          if (leaf.getValue().equals(pLeaf.getValue())) {
+            return this;
+          }
+          pChange.old = leaf;
+          newChild = pLeaf;
+        } else {
+          newChild = merge(leaf, leaf.hash, pLeaf, pShift + BITS);
+        }
+      } else {
+        newChild = ((Node) child).put(pLeaf, pShift + BITS, pChange);
+        if (newChild == child) {
+          return this;
+        }
+      }
+
+      return new BitmapNode(bitmap, replaced(idx, newChild));
+    }
+
+    @Override
+    Object remove(final Object pKey, final int pHash, final int pShift, final Change pChange) {
+      int bit = 1 << fragment(pHash, pShift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+
+      int idx = index(bit);
+      Object child = children[idx];
+      Object newChild;
+      if (child instanceof Leaf) {
+        if (!((Leaf) child).getKey().equals(pKey)) {
+          return this;
+        }
+        pChange.old = (Leaf) child;
+        newChild = null;
+      } else {
+        newChild = ((Node) child).remove(pKey, pHash, pShift + BITS, pChange);
+        if (newChild == child) {
+          return this;
+        }
+      }
+
+      if (newChild instanceof Leaf && children.length == 1 && pShift > 0) {
+        return newChild;
+      }
+      if (newChild != null) {
+        return new BitmapNode(bitmap, replaced(idx, newChild));
+      }
+
+      if (pShift > 0 && children.length == 2 && children[1 - idx] instanceof Leaf) {
+        // The remaining leaf can be stored directly in the parent
+        return children[1 - idx];
+      }
+      if (pShift > 0 && children.length == 1) {
+        return null;
+      }
+
+      Object[] newChildren = new Object[children.length - 1];
+      System.arraycopy(children, 0, newChildren, 0, idx);
+      System.arraycopy(children, idx + 1, newChildren, idx, children.length - idx - 1);
+      return new BitmapNode(bitmap & ~bit, newChildren);
+    }
+
+    private Object[] replaced(final int pIdx, final Object pChild) {
+      Object[] newChildren = children.clone();
+      newChildren[pIdx] = pChild;
+      return newChildren;
+    }
+  }
+
+  /**
+   * Node storing leaves whose keys have identical hashes.
+   */
+  private static final class CollisionNode extends Node {
+    private final int hash;
+    private final Leaf[] leaves;
+
+    CollisionNode(final int pHash, final Leaf[] pLeaves) {
+      hash = pHash;
+      leaves = pLeaves;
+    }
+
+    private int find(final Object pKey) {
+      for (int i = 0; i < leaves.length; i++) {
+        if (leaves[i].getKey().equals(pKey)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    Object get(final Object pKey, final int pHash, final int pShift) {
+      int idx = find(pKey);
+      if (idx < 0) {
+        return null;
+      }
+      return leaves[idx].getValue();
+    }
+
+    @Override
+    Node put(final Leaf pLeaf, final int pShift, final Change pChange) {
+      if (pLeaf.hash != hash) {
+        return merge(this, hash, pLeaf, pShift);
+      }
+
+      int idx = find(pLeaf.getKey());
+      Leaf[] newLeaves;
+      if (idx < 0) {
+        newLeaves = new Leaf[leaves.length + 1];
+        System.arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+        newLeaves[leaves.length] = pLeaf;
+      } else {
+        if (leaves[idx].getValue().equals(pLeaf.getValue())) {
+          return this;
+        }
+        pChange.old = leaves[idx];
+        newLeaves = leaves.clone();
+        newLeaves[idx] = pLeaf;
+      }
+      return new CollisionNode(hash, newLeaves);
+    }
+
+    @Override
+    Object remove(final Object pKey, final int pHash, final int pShift, final Change pChange) {
+      int idx = find(pKey);
+      if (idx < 0) {
+        return this;
+      }
+      pChange.old = leaves[idx];
+      if (leaves.length == 2) {
+        return leaves[1 - idx];
+      }
+
+      Leaf[] newLeaves = new Leaf[leaves.length - 1];
+      System.arraycopy(leaves, 0, newLeaves, 0, idx);
+      System.arraycopy(leaves, idx + 1, newLeaves, idx, leaves.length - idx - 1);
+      return new CollisionNode(hash, newLeaves);
+    }
+  }
+
+  /**
+   * Creates a node containing both {@link pExisting} (a leaf or a collision
+   * node with hash {@link pExistingHash}) and {@link pLeaf}.
+   */
+  private static Node merge(final Object pExisting, final int pExistingHash, final Leaf pLeaf, final int pShift) {
+    if (pExistingHash == pLeaf.hash) {
+      return new CollisionNode(pLeaf.hash, new Leaf[] {(Leaf) pExisting, pLeaf});
+    }
+
+    int existingFragment = fragment(pExistingHash, pShift);
+    int newFragment = fragment(pLeaf.hash, pShift);
+    if (existingFragment == newFragment) {
+      Node child = merge(pExisting, pExistingHash, pLeaf, pShift + BITS);
+      return new BitmapNode(1 << existingFragment, new Object[] {child});
+    }
+
+    int bitmap = (1 << existingFragment) | (1 << newFragment);
+    if (existingFragment < newFragment) {
+      return new BitmapNode(bitmap, new Object[] {pExisting, pLeaf});
+    }
+    return new BitmapNode(bitmap, new Object[] {pLeaf, pExisting});
+  }
+
+  /**
+   * Depth-first iterator over the leaves of the trie.
+   */
+  private static final class TrieIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+    private final ArrayDeque<Object[]> arrays = new ArrayDeque<>();
+    private final ArrayDeque<Integer> positions = new ArrayDeque<>();
+    private Leaf next;
+
+    TrieIterator(final Node pRoot) {
+      push(pRoot);
+      advance();
+    }
+
+    private void push(final Node pNode) {
+      if (pNode instanceof BitmapNode) {
+        arrays.push(((BitmapNode) pNode).children);
+      } else {
+        arrays.push(((CollisionNode) pNode).leaves);
+      }
+      positions.push(0);
+    }
+
+    private void advance() {
+      next = null;
+      while (next == null && !arrays.isEmpty()) {
+        Object[] array = arrays.peek();
+        int position = positions.pop();
+        if (position >= array.length) {
+          arrays.pop();
+          continue;
+        }
+        positions.push(position + 1);
+
+        Object child = array[position];
+        if (child instanceof Leaf) {
+          next = (Leaf) child;
+        } else {
+          push((Node) child);
+        }
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map.Entry<K, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Leaf current = next;
+      advance();
+      return (Map.Entry<K, V>) (Map.Entry<?, ?>) current;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("PersistentHashMap is immutable");
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * An immutable hash set with structural sharing, backed by a
+ * {@link PersistentHashMap}.
+ *
+ * Modifying operations return a new set sharing all unchanged structure with
+ * the original one. The set implements {@link java.util.Set} for reading, and
+ * throws {@link UnsupportedOperationException} on attempts to modify it
+ * through that interface.
+ *
+ * @param <E> element type
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+  private static final PersistentHashSet<Object> EMPTY =
+      new PersistentHashSet<>(PersistentHashMap.<Object, Object>empty());
+
+  private final PersistentHashMap<E, E> map;
+
+  private PersistentHashSet(final PersistentHashMap<E, E> pMap) {
+    map = pMap;
+  }
+
+  /**
+   * @return An empty set
+   */
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentHashSet<E> empty() {
+    return (PersistentHashSet<E>) EMPTY;
+  }
+
+  /**
+   * Creates a set with the same elements as {@link pElements}.
+   *
+   * @param pElements Source of the elements
+   * @return A new set
+   */
+  public static <E> PersistentHashSet<E> copyOf(final Collection<? extends E> pElements) {
+    PersistentHashSet<E> result = empty();
+    for (E element : pElements) {
+      result = result.plus(element);
+    }
+    return result;
+  }
+
+  /**
+   * @param pElement Element to add
+   * @return A set containing {@link pElement}; this set if it already contains it
+   */
+  public PersistentHashSet<E> plus(final E pElement) {
+    PersistentHashMap<E, E> newMap = map.plus(pElement, pElement);
+    if (newMap == map) {
+      return this;
+    }
+    return new PersistentHashSet<>(newMap);
+  }
+
+  /**
+   * @param pElement Element to remove
+   * @return A set not containing {@link pElement}; this set if it does not contain it
+   */
+  public PersistentHashSet<E> minus(final Object pElement) {
+    PersistentHashMap<E, E> newMap = map.minus(pElement);
+    if (newMap == map) {
+      return this;
+    }
+    if (newMap.isEmpty()) {
+      return empty();
+    }
+    return new PersistentHashSet<>(newMap);
+  }
+
+  @Override
+  public boolean contains(final Object pElement) {
+    return map.containsKey(pElement);
+  }
+
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  @Override
+  public int hashCode() {
+    return map.keyHashCode();
+  }
+
+  @Override
+  public boolean equals(final Object pOther) {
+    if (pOther instanceof PersistentHashSet) {
+      PersistentHashSet<?> other = (PersistentHashSet<?>) pOther;
+      if (other.size() != size() || other.hashCode() != hashCode()) {
+        return false;
+      }
+    }
+    return super.equals(pOther);
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    final Iterator<Map.Entry<E, E>> entries = map.entrySet().iterator();
+    return new Iterator<E>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public E next() {
+        return entries.next().getKey();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException("PersistentHashSet is immutable");
+      }
+    };
+  }
+}
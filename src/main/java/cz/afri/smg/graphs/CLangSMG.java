@@ -24,16 +24,25 @@ package cz.afri.smg.graphs;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Deque;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Objects;
 import java.util.Set;
 
+import com.google.common.collect.ForwardingDeque;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Sets;
 
+import cz.afri.smg.collections.IntHashSet;
+import cz.afri.smg.collections.PersistentHashMap;
+import cz.afri.smg.collections.PersistentHashSet;
+
 import cz.afri.smg.graphs.SMGValues.SMGKnownSymValue;
 import cz.afri.smg.graphs.SMGValues.SMGSymbolicValue;
 import cz.afri.smg.graphs.SMGValues.SMGUnknownValue;
@@ -55,17 +64,47 @@ class CLangSMG extends SMG implements WritableSMG {
    *
    * TODO: [STACK-FRAME-STRUCTURE] Perhaps it could be wrapped in a class?
    */
-  private final ArrayDeque<CLangStackFrame> stackObjects = new ArrayDeque<>();
+  private ArrayDeque<CLangStackFrame> stackObjects = new ArrayDeque<>();
+
+  /**
+   * Set if the stack frames are shared with another CLangSMG and have to be
+   * copied before being modified.
+   */
+  private boolean stackShared = false;
+
+  /**
+   * Set if the top stack frame may be shared with another CLangSMG and has to
+   * be copied before a variable is added to it. Frames below the top are never
+   * modified, so they are always shared by copies.
+   */
+  private boolean topFrameShared = false;
+
+  /**
+   * Unmodifiable view of {@link #stackObjects}, returned by {@link #getStackFrames()}.
+   */
+  private final Deque<CLangStackFrame> stackView = new StackView();
+
+  /**
+   * Maps objects on the stack to the declarations of the functions whose
+   * frames contain them.
+   */
+  private PersistentHashMap<SMGObject, CFunctionDeclaration> stackObjectFunctions = PersistentHashMap.empty();
+
+  /**
+   * Sum of {@link #frameHash(CLangStackFrame, int)} over the stack frames,
+   * maintained when frames are pushed and popped.
+   */
+  private int stackHash = 0;
 
   /**
    * A container for objects allocated on heap
    */
-  private final HashSet<SMGObject> heapObjects = new HashSet<>();
+  private PersistentHashSet<SMGObject> heapObjects = PersistentHashSet.empty();
 
   /**
    * A container for global objects
    */
-  private final HashMap<String, SMGRegion> globalObjects = new HashMap<>();
+  private PersistentHashMap<String, SMGRegion> globalObjects = PersistentHashMap.empty();
 
   /**
    * A flag signifying the edge leading to this state caused memory to be leaked
@@ -75,6 +114,28 @@ class CLangSMG extends SMG implements WritableSMG {
    */
   private boolean hasLeaks = false;
 
+  /**
+   * Heap objects which lost their last pointer held by a Has-Value edge since
+   * the last leak check. Objects which are valid and still unreferenced when
+   * the candidates are checked are leaked. Unreachable cycles are found only
+   * by {@link #pruneUnreachable()}.
+   */
+  private PersistentHashSet<SMGObject> leakCandidates = PersistentHashSet.empty();
+
+  /**
+   * Set while a transaction is being committed or values are being merged.
+   * The checks after complete operations are then postponed until the commit
+   * or the merge finishes.
+   */
+  private boolean inBatch = false;
+
+  /**
+   * The memory leak flag and the leak candidates when a transaction started
+   * to be committed, restored if the commit fails.
+   */
+  private boolean batchHasLeaks = false;
+  private PersistentHashSet<SMGObject> batchLeakCandidates = null;
+
   /**
    * A flag setting if the class should perform additional consistency checks.
    * It should be useful only during debugging, when is should find bad external
@@ -101,7 +162,7 @@ class CLangSMG extends SMG implements WritableSMG {
    */
   public CLangSMG() {
     super();
-    heapObjects.add(getNullObject());
+    heapObjects = heapObjects.plus(getNullObject());
   }
 
   /**
@@ -113,16 +174,88 @@ class CLangSMG extends SMG implements WritableSMG {
    *          The original CLangSMG
    */
   public CLangSMG(final CLangSMG pHeap) {
-    super(pHeap);
+    this(pHeap, false);
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * Keeps consistency: yes
+   *
+   * @param pHeap
+   *          The original CLangSMG
+   * @param pCopyOnWrite
+   *          If set, the values, the neq relation and the stack are shared
+   *          with the original CLangSMG, and copied by whichever of the two
+   *          modifies them first. Otherwise they are copied immediately. The
+   *          stack frames themselves are shared in both cases, and the top
+   *          one is copied when a variable is added to it.
+   *
+   * In either case, {@link pHeap} is marked so that it does not modify the
+   * shared components in place, so the constructor writes to {@link pHeap}.
+   */
+  CLangSMG(final CLangSMG pHeap, final boolean pCopyOnWrite) {
+    super(pHeap, pCopyOnWrite);
 
-    for (CLangStackFrame stackFrame : pHeap.stackObjects) {
-      CLangStackFrame newFrame = new CLangStackFrame(stackFrame);
-      stackObjects.add(newFrame);
+    if (pCopyOnWrite) {
+      stackObjects = pHeap.stackObjects;
+      stackShared = true;
+      pHeap.stackShared = true;
+    } else {
+      stackObjects = new ArrayDeque<>(pHeap.stackObjects);
     }
+    stackHash = pHeap.stackHash;
+    topFrameShared = true;
+    pHeap.topFrameShared = true;
+    stackObjectFunctions = pHeap.stackObjectFunctions;
 
-    heapObjects.addAll(pHeap.heapObjects);
-    globalObjects.putAll(pHeap.globalObjects);
+    heapObjects = pHeap.heapObjects;
+    globalObjects = pHeap.globalObjects;
     hasLeaks = pHeap.hasLeaks;
+    leakCandidates = pHeap.leakCandidates;
+  }
+
+  /**
+   * Returns the stack of this CLangSMG, copying it first if it is shared with
+   * another CLangSMG. Only the references to the frames are copied.
+   *
+   * @return Stack which may be modified in place
+   */
+  private ArrayDeque<CLangStackFrame> getWritableStackFrames() {
+    if (stackShared) {
+      stackObjects = new ArrayDeque<>(stackObjects);
+      stackShared = false;
+    }
+    return stackObjects;
+  }
+
+  /**
+   * Returns the top stack frame, replacing it by its copy first if it may be
+   * shared with another CLangSMG.
+   *
+   * @return Top stack frame which may be modified in place
+   */
+  private CLangStackFrame getWritableTopFrame() {
+    ArrayDeque<CLangStackFrame> frames = getWritableStackFrames();
+    if (topFrameShared) {
+      CLangStackFrame sharedFrame = frames.pop();
+      stackHash -= frameHash(sharedFrame, frames.size());
+      CLangStackFrame copy = new CLangStackFrame(sharedFrame);
+      frames.push(copy);
+      stackHash += frameHash(copy, frames.size() - 1);
+      topFrameShared = false;
+    }
+    return frames.peek();
+  }
+
+  /**
+   * @param pFrame A stack frame
+   * @param pDepth Position of the frame counted from the bottom of the stack
+   * @return Contribution of the frame to the hash code of the stack
+   */
+  private static int frameHash(final CLangStackFrame pFrame, final int pDepth) {
+    final int prime = 31;
+    return prime * pDepth + pFrame.hashCode();
   }
 
   /**
@@ -141,7 +274,7 @@ class CLangSMG extends SMG implements WritableSMG {
     if (CLangSMG.performChecks() && heapObjects.contains(pObject)) {
       throw new IllegalArgumentException("Heap object already in the SMG: [" + pObject + "]");
     }
-    heapObjects.add(pObject);
+    heapObjects = heapObjects.plus(pObject);
     addObject(pObject);
   }
 
@@ -165,7 +298,7 @@ class CLangSMG extends SMG implements WritableSMG {
       throw new IllegalArgumentException("Global object with label [" + pObject.getLabel() + "] already in the SMG");
     }
 
-    globalObjects.put(pObject.getLabel(), pObject);
+    globalObjects = globalObjects.plus(pObject.getLabel(), pObject);
     super.addObject(pObject);
   }
 
@@ -184,8 +317,10 @@ class CLangSMG extends SMG implements WritableSMG {
    * TODO: Shall we need an extension for putting objects to upper frames?
    */
   private void addStackObject(final SMGRegion pObject) {
+    CLangStackFrame frame = getWritableTopFrame();
     super.addObject(pObject);
-    stackObjects.peek().addStackVariable(pObject.getLabel(), pObject);
+    frame.addStackVariable(pObject.getLabel(), pObject);
+    stackObjectFunctions = stackObjectFunctions.plus(pObject, frame.getFunctionDeclaration());
   }
 
   /**
@@ -203,8 +338,12 @@ class CLangSMG extends SMG implements WritableSMG {
     SMGObject returnObject = newFrame.getReturnObject();
     if (returnObject != null) {
       super.addObject(newFrame.getReturnObject());
+      stackObjectFunctions = stackObjectFunctions.plus(returnObject, pFunctionDeclaration);
     }
-    stackObjects.push(newFrame);
+    invalidateCanonicalForm();
+    getWritableStackFrames().push(newFrame);
+    stackHash += frameHash(newFrame, stackObjects.size() - 1);
+    topFrameShared = false;
   }
 
   /**
@@ -215,6 +354,7 @@ class CLangSMG extends SMG implements WritableSMG {
    */
   @Override
   public void setMemoryLeak() {
+    invalidateCanonicalForm();
     hasLeaks = true;
   }
 
@@ -230,94 +370,165 @@ class CLangSMG extends SMG implements WritableSMG {
    */
   @Override
   public void dropStackFrame() {
-    CLangStackFrame frame = stackObjects.pop();
+    invalidateCanonicalForm();
+    CLangStackFrame frame = getWritableStackFrames().pop();
+    stackHash -= frameHash(frame, stackObjects.size());
+    topFrameShared = true;
     for (SMGObject object : frame.getAllObjects()) {
-      removeObjectAndEdges(object);
+      stackObjectFunctions = stackObjectFunctions.minus(object);
+    }
+    removeObjectsAndEdges(frame.getAllObjects());
+    if (!inBatch) {
+      checkLeakCandidates();
+      if (CLangSMG.performChecks()) {
+        CLangSMGConsistencyVerifier.verifyCLangSMG(this);
+      }
+    }
+  }
+
+  @Override
+  public SMGTransaction beginTransaction() {
+    return new SMGTransaction(this);
+  }
+
+  /**
+   * Called by {@link SMGTransaction#commit()} before applying the edits.
+   * Remembers the leak state, which the edits change as a side effect. The
+   * transaction records how to undo the edits themselves.
+   */
+  void beginBatch() {
+    if (inBatch) {
+      throw new IllegalStateException("Another transaction is being committed");
     }
+    batchHasLeaks = hasLeaks;
+    batchLeakCandidates = leakCandidates;
+    inBatch = true;
+  }
 
+  /**
+   * Called by {@link SMGTransaction#commit()} after applying the edits. Runs
+   * the leak check and, with checks, the consistency verification postponed
+   * during the commit.
+   */
+  void endBatch() {
+    inBatch = false;
+    batchLeakCandidates = null;
+    checkLeakCandidates();
     if (CLangSMG.performChecks()) {
       CLangSMGConsistencyVerifier.verifyCLangSMG(this);
     }
   }
 
+  /**
+   * Called by {@link SMGTransaction#commit()} after the applied edits were
+   * undone. Restores the leak state from before the commit.
+   */
+  void abortBatch() {
+    inBatch = false;
+    invalidateCanonicalForm();
+    hasLeaks = batchHasLeaks;
+    leakCandidates = batchLeakCandidates;
+    batchLeakCandidates = null;
+  }
+
   /**
    * Prune the SMG: remove all unreachable objects (heap ones: global and stack
    * are always reachable) and values.
    *
-   * TODO: Too large. Refactor into fewer pieces
+   * The mark phase visits each reachable object and each of its fields once,
+   * using the per-object index of Has-Value edges. The sweep phase then passes
+   * once over the objects and once over the values, removing the unmarked
+   * ones with their edges.
    *
    * Keeps consistency: yes
    */
   @Override
   public void pruneUnreachable() {
-    Set<SMGObject> seenObjects = new HashSet<>();
-    Set<Integer> seenValues = new HashSet<>();
-    Queue<SMGObject> workqueue = new ArrayDeque<>();
+    Set<SMGObject> reachableObjects = Collections.newSetFromMap(new IdentityHashMap<SMGObject, Boolean>());
+    IntHashSet reachableValues = new IntHashSet();
+    ArrayDeque<SMGObject> workqueue = new ArrayDeque<>();
 
     // TODO: wrap to getStackObjects(), perhaps just internally?
     for (CLangStackFrame frame : getStackFrames()) {
       for (SMGObject stackObject : frame.getAllObjects()) {
-        workqueue.add(stackObject);
+        if (reachableObjects.add(stackObject)) {
+          workqueue.add(stackObject);
+        }
+      }
+    }
+    for (SMGObject globalObject : globalObjects.values()) {
+      if (reachableObjects.add(globalObject)) {
+        workqueue.add(globalObject);
       }
     }
-
-    workqueue.addAll(getGlobalObjects().values());
-
-    SMGEdgeHasValueFilter filter = new SMGEdgeHasValueFilter();
-
-    /*
-     * TODO: Refactor into generic methods for obtaining reachable/unreachable
-     * subSMGs
-     *
-     * TODO: Perhaps introduce a SubSMG class which would be a SMG tied
-     * to a certain (Clang)SMG and guaranteed to be a subset of it?
-     */
 
     while (!workqueue.isEmpty()) {
       SMGObject processed = workqueue.remove();
-      if (!seenObjects.contains(processed)) {
-        seenObjects.add(processed);
-        filter.filterByObject(processed);
-        for (SMGEdgeHasValue outbound : getHVEdges(filter)) {
+      for (SMGEdgeHasValue outbound : getHVEdgesOf(processed)) {
+        if (reachableValues.add(outbound.getValue())) {
           SMGObject pointedObject = getObjectPointedBy(outbound.getValue());
-          if (pointedObject != null && !seenObjects.contains(pointedObject)) {
+          if (pointedObject != null && reachableObjects.add(pointedObject)) {
             workqueue.add(pointedObject);
           }
-          if (!seenValues.contains(Integer.valueOf(outbound.getValue()))) {
-            seenValues.add(Integer.valueOf(outbound.getValue()));
-          }
         }
       }
     }
 
-    /*
-     * TODO: Refactor into generic methods for substracting SubSMGs (see above)
-     */
-    Set<SMGObject> strayObjects = new HashSet<>(Sets.difference(getObjects(), seenObjects));
+    List<SMGObject> strayObjects = new ArrayList<>();
+    for (SMGObject object : getObjects()) {
+      if (object.notNull() && !reachableObjects.contains(object)) {
+        strayObjects.add(object);
+      }
+    }
     for (SMGObject strayObject : strayObjects) {
-      if (strayObject.notNull()) {
-        if (isObjectValid(strayObject)) {
-          setMemoryLeak();
-        }
-        removeObjectAndEdges(strayObject);
-        heapObjects.remove(strayObject);
-
+      if (isObjectValid(strayObject)) {
+        setMemoryLeak();
       }
+      removeObjectAndEdges(strayObject);
+      heapObjects = heapObjects.minus(strayObject);
     }
 
-    Set<Integer> strayValues = new HashSet<>(Sets.difference(getValues(), seenValues));
-    for (Integer strayValue : strayValues) {
-      if (strayValue != getNullValue()) {
-        // Here, we can't just remove stray value, we also have to remove the points-to edge
-        if (isPointer(strayValue)) {
-          removePointsToEdge(strayValue);
-        }
+    reachableValues.add(getNullValue());
+    removeValuesExcept(reachableValues);
+    leakCandidates = PersistentHashSet.empty();
+  }
 
-        removeValue(strayValue);
+  @Override
+  final void hasValueEdgeRemoved() {
+    if (!inBatch) {
+      checkLeakCandidates();
+    }
+  }
+
+  @Override
+  final void valueUnreferenced(final int pValue) {
+    if (isPointer(pValue)) {
+      SMGObject target = getPointer(pValue).getObject();
+      if (target.notNull() && heapObjects.contains(target)) {
+        leakCandidates = leakCandidates.plus(target);
       }
     }
   }
 
+  /**
+   * Sets the memory leak flag if some leak candidate is a valid heap object
+   * without any pointer held by a Has-Value edge, and forgets the candidates.
+   * Takes time proportional to the number of the candidates and their
+   * addresses.
+   */
+  private void checkLeakCandidates() {
+    if (leakCandidates.isEmpty()) {
+      return;
+    }
+    for (SMGObject candidate : leakCandidates) {
+      if (heapObjects.contains(candidate) && isObjectValid(candidate) && !isReferenced(candidate)) {
+        setMemoryLeak();
+        break;
+      }
+    }
+    leakCandidates = PersistentHashSet.empty();
+  }
+
   /* ********************************************* */
   /* Non-modifying functions: getters and the like */
   /* ********************************************* */
@@ -370,11 +581,11 @@ class CLangSMG extends SMG implements WritableSMG {
   /**
    * Returns the stack of frames containing objects. Constant.
    *
-   * @return Stack of frames
+   * @return Unmodifiable view of the stack of frames
    */
   @Override
-  public ArrayDeque<CLangStackFrame> getStackFrames() {
-    return stackObjects;
+  public Deque<CLangStackFrame> getStackFrames() {
+    return stackView;
   }
 
   /**
@@ -412,7 +623,9 @@ class CLangSMG extends SMG implements WritableSMG {
   }
 
   /**
-   * Constant.
+   * Besides by {@link #setMemoryLeak()} and {@link #pruneUnreachable()}, the
+   * flag is set by the operations which may remove the last reference to a
+   * heap object. Constant.
    *
    * @return True if the SMG is a successor over the edge causing some memory
    * to be leaked. Returns false otherwise.
@@ -434,10 +647,9 @@ class CLangSMG extends SMG implements WritableSMG {
 
   @Override
   public String getFunctionName(final SMGRegion pObject) {
-    for (CLangStackFrame cLangStack : stackObjects) {
-      if (cLangStack.getAllObjects().contains(pObject)) {
-        return cLangStack.getFunctionDeclaration().getName();
-      }
+    CFunctionDeclaration function = stackObjectFunctions.get(pObject);
+    if (function != null) {
+      return function.getName();
     }
 
     throw new IllegalArgumentException("No function name for non-stack object");
@@ -445,14 +657,73 @@ class CLangSMG extends SMG implements WritableSMG {
 
   @Override
   public void mergeValues(final int v1, final int v2) {
-    super.mergeValues(v1, v2);
+    // Edges holding v2 are removed before they are added back with v1
+    boolean wasInBatch = inBatch;
+    inBatch = true;
+    try {
+      super.mergeValues(v1, v2);
+    } finally {
+      inBatch = wasInBatch;
+    }
+    if (!inBatch) {
+      checkLeakCandidates();
+    }
+  }
+
+  /**
+   * Removes all objects in {@link pObjects} and all edges leading from/to
+   * them from the SMG. Equivalent to calling
+   * {@link #removeHeapObject(SMGObject)} for each of the objects, but the
+   * value index of Has-Value edges is updated once per value. Throws
+   * {@link IllegalArgumentException} before removing anything if some of the
+   * objects is not a heap object, or is in the list twice.
+   *
+   * Keeps consistency: yes
+   *
+   * @param pObjects Heap objects to remove
+   */
+  final void removeHeapObjects(final List<SMGObject> pObjects) {
+    Set<SMGObject> toRemove = new HashSet<>();
+    for (SMGObject object : pObjects) {
+      if (!isHeapObject(object) || !toRemove.add(object)) {
+        throw new IllegalArgumentException("Cannot directly remove non-heap objects");
+      }
+    }
+    for (SMGObject object : pObjects) {
+      heapObjects = heapObjects.minus(object);
+    }
+    removeObjectsAndEdges(pObjects);
+    if (!inBatch) {
+      checkLeakCandidates();
+    }
+  }
+
+  /**
+   * Adds {@link pObject} to the heap objects or removes it from them, without
+   * adding or removing the object itself.
+   *
+   * Keeps consistency: no
+   *
+   * @param pObject An object
+   * @param pHeap True if the object should be a heap object
+   */
+  final void setHeapObject(final SMGObject pObject, final boolean pHeap) {
+    invalidateCanonicalForm();
+    if (pHeap) {
+      heapObjects = heapObjects.plus(pObject);
+    } else {
+      heapObjects = heapObjects.minus(pObject);
+    }
   }
 
   @Override
   public final void removeHeapObject(final SMGObject pObject) {
     if (isHeapObject(pObject)) {
-      heapObjects.remove(pObject);
+      heapObjects = heapObjects.minus(pObject);
       removeObjectAndEdges(pObject);
+      if (!inBatch) {
+        checkLeakCandidates();
+      }
     } else {
       throw new IllegalArgumentException("Cannot directly remove non-heap objects");
     }
@@ -492,35 +763,6 @@ class CLangSMG extends SMG implements WritableSMG {
     return false;
   }
 
-  /**
-   * Get the symbolic value, that represents the address
-   * pointing to the given memory with the given offset, if it exists.
-   *
-   * @param memory
-   *          get address belonging to this memory.
-   * @param offset
-   *          get address with this offset relative to the beginning of the
-   *          memory.
-   * @return Address of the given field, or null, if such an address does not
-   *         yet exist in the SMG.
-   */
-  @Override
-  public Integer getAddress(final SMGObject pMemory, final Integer pOffset) {
-
-    // TODO A better way of getting those edges, maybe with a filter
-    // like the Has-Value-Edges
-
-    Set<SMGEdgePointsTo> pointsToEdges = getPTEdges();
-
-    for (SMGEdgePointsTo edge : pointsToEdges) {
-      if (edge.getObject().equals(pMemory) && edge.getOffset() == pOffset) {
-        return edge.getValue();
-      }
-    }
-
-    return null;
-  }
-
   /**
    * Read Value in field (object, type) of an Object.
    *
@@ -655,6 +897,16 @@ class CLangSMG extends SMG implements WritableSMG {
     return newObject;
   }
 
+  /**
+   * Constant time, as the hash codes of all components are maintained
+   * incrementally. CLangSMGs identical according to
+   * {@link #isIdenticalTo(ReadableSMG)} have the same hash code.
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), stackHash, heapObjects, globalObjects);
+  }
+
   @Override
   public boolean isIdenticalTo(final ReadableSMG pOther) {
     if (!(pOther instanceof CLangSMG)) {
@@ -673,4 +925,131 @@ class CLangSMG extends SMG implements WritableSMG {
 
     return stackIdentical && heapIdentical && globalIdentical;
   }
+
+  /**
+   * Unmodifiable view of the current stack of this CLangSMG. The stack and
+   * its frames may be shared with other CLangSMGs, so neither may be
+   * modified from outside.
+   */
+  private final class StackView extends ForwardingDeque<CLangStackFrame> {
+    @Override
+    protected Deque<CLangStackFrame> delegate() {
+      return stackObjects;
+    }
+
+    @Override
+    public Iterator<CLangStackFrame> iterator() {
+      return Iterators.unmodifiableIterator(stackObjects.iterator());
+    }
+
+    @Override
+    public Iterator<CLangStackFrame> descendingIterator() {
+      return Iterators.unmodifiableIterator(stackObjects.descendingIterator());
+    }
+
+    @Override
+    public boolean add(final CLangStackFrame pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends CLangStackFrame> pFrames) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addFirst(final CLangStackFrame pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addLast(final CLangStackFrame pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean offer(final CLangStackFrame pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean offerFirst(final CLangStackFrame pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean offerLast(final CLangStackFrame pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void push(final CLangStackFrame pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CLangStackFrame pop() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CLangStackFrame poll() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CLangStackFrame pollFirst() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CLangStackFrame pollLast() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CLangStackFrame remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean remove(final Object pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CLangStackFrame removeFirst() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CLangStackFrame removeLast() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(final Object pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeLastOccurrence(final Object pFrame) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> pFrames) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> pFrames) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+      throw new UnsupportedOperationException();
+    }
+  }
 }
@@ -21,8 +21,8 @@
  */
 package cz.afri.smg.graphs;
 
-import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -76,7 +76,7 @@ public final class CLangSMGConsistencyVerifier {
    * @return True if {@link pSmg} is consistent w.r.t. this criteria. False otherwise.
    */
   private static boolean verifyDisjunctHeapAndStack(final ReadableSMG pSmg) {
-    ArrayDeque<CLangStackFrame> stackFrames = pSmg.getStackFrames();
+    Deque<CLangStackFrame> stackFrames = pSmg.getStackFrames();
     Set<SMGObject> stack = new HashSet<>();
 
     for (CLangStackFrame frame: stackFrames) {
@@ -103,7 +103,7 @@ public final class CLangSMGConsistencyVerifier {
    * @return True if {@link pSmg} is consistent w.r.t. this criteria. False otherwise.
    */
   private static boolean verifyDisjunctGlobalAndStack(final ReadableSMG pSmg) {
-    ArrayDeque<CLangStackFrame> stackFrames = pSmg.getStackFrames();
+    Deque<CLangStackFrame> stackFrames = pSmg.getStackFrames();
     Set<SMGObject> stack = new HashSet<>();
 
     for (CLangStackFrame frame: stackFrames) {
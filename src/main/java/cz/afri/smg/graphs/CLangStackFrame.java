@@ -21,13 +21,12 @@
  */
 package cz.afri.smg.graphs;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
+import cz.afri.smg.collections.PersistentHashMap;
+import cz.afri.smg.collections.PersistentHashSet;
 import cz.afri.smg.objects.SMGObject;
 import cz.afri.smg.objects.SMGRegion;
 import cz.afri.smg.types.CFunctionDeclaration;
@@ -35,7 +34,8 @@ import cz.afri.smg.types.CType;
 import cz.afri.smg.types.CVoidType;
 
 /**
- * Represents a C language stack frame
+ * Represents a C language stack frame. Variables are kept in persistent
+ * collections, so copying a frame takes constant time.
  */
 public final class CLangStackFrame {
   static final String RETVAL_LABEL = "___cpa_temp_result_var_";
@@ -49,13 +49,18 @@ public final class CLangStackFrame {
    * A mapping from variable names to a set of SMG objects, representing
    * local variables.
    */
-  private final HashMap <String, SMGRegion> stackVariables = new HashMap<>();
+  private PersistentHashMap<String, SMGRegion> stackVariables = PersistentHashMap.empty();
 
   /**
    * An object to store function return value
    */
   private final SMGRegion returnValueObject;
 
+  /**
+   * All objects of the frame: return value object and variables
+   */
+  private PersistentHashSet<SMGObject> allObjects = PersistentHashSet.empty();
+
   /**
    * Constructor. Creates an empty frame.
    *
@@ -72,6 +77,7 @@ public final class CLangStackFrame {
     } else {
       int returnValueSize = returnType.getSize();
       returnValueObject = new SMGRegion(returnValueSize, CLangStackFrame.RETVAL_LABEL);
+      allObjects = allObjects.plus(returnValueObject);
     }
   }
 
@@ -82,8 +88,9 @@ public final class CLangStackFrame {
    */
   public CLangStackFrame(final CLangStackFrame pFrame) {
     stackFunction = pFrame.stackFunction;
-    stackVariables.putAll(pFrame.stackVariables);
+    stackVariables = pFrame.stackVariables;
     returnValueObject = pFrame.returnValueObject;
+    allObjects = pFrame.allObjects;
   }
 
 
@@ -96,7 +103,7 @@ public final class CLangStackFrame {
    * @param pVariableName A name of the variable
    * @param pObject An object to put into the stack frame
    */
-  public void addStackVariable(final String pVariableName, final SMGRegion pObject) {
+  void addStackVariable(final String pVariableName, final SMGRegion pObject) {
     if (stackVariables.containsKey(pVariableName)) {
       throw new IllegalArgumentException("Stack frame for function '" +
                                        stackFunction.toString() +
@@ -104,7 +111,8 @@ public final class CLangStackFrame {
                                        pVariableName + "'");
     }
 
-    stackVariables.put(pVariableName, pObject);
+    stackVariables = stackVariables.plus(pVariableName, pObject);
+    allObjects = allObjects.plus(pObject);
   }
 
   /* ********************************************* */
@@ -163,20 +171,15 @@ public final class CLangStackFrame {
    * @return a mapping from variables name to SMGObjects
    */
   public Map<String, SMGRegion> getVariables() {
-    return Collections.unmodifiableMap(stackVariables);
+    return stackVariables;
   }
 
   /**
-   * @return a set of all objects: return value object, variables, parameters
+   * @return a set of all objects: return value object, variables, parameters.
+   * The set is immutable and does not change when variables are added later.
    */
   public Set<SMGObject> getAllObjects() {
-    HashSet<SMGObject> retset = new HashSet<>();
-    retset.addAll(stackVariables.values());
-    if (returnValueObject != null) {
-      retset.add(returnValueObject);
-    }
-
-    return Collections.unmodifiableSet(retset);
+    return allObjects;
   }
 
   /**
@@ -21,8 +21,8 @@
  */
 package cz.afri.smg.graphs;
 
-import java.util.ArrayDeque;
 import java.util.BitSet;
+import java.util.Deque;
 import java.util.Map;
 import java.util.Set;
 
@@ -42,7 +42,7 @@ public interface ReadableSMG {
 
   SMGRegion getObjectForVisibleVariable(String pVariable);
 
-  ArrayDeque<CLangStackFrame> getStackFrames();
+  Deque<CLangStackFrame> getStackFrames();
 
   SMGObject getNullObject();
 
@@ -72,6 +72,8 @@ public interface ReadableSMG {
 
   Iterable<SMGEdgePointsTo> getPTEdges();
 
+  Set<SMGEdgePointsTo> getPTEdgesToObject(SMGObject pObject);
+
   boolean isPointer(Integer pValue);
 
   Integer getAddress(SMGObject pMemory, Integer pOffset);
@@ -80,6 +82,8 @@ public interface ReadableSMG {
 
   Iterable<SMGEdgeHasValue> getHVEdges(SMGEdgeHasValueFilter pFilter);
 
+  Iterable<SMGEdgeHasValue> getHVEdgesOverlapping(SMGObject pObject, int pStart, int pEnd);
+
   SMGEdgeHasValue getUniqueHV(SMGEdgeHasValueFilter pFilter, boolean pStrict);
 
   boolean isCoveredByNullifiedBlocks(SMGObject pObject, int pOffset, CType pType);
@@ -21,20 +21,22 @@
  */
 package cz.afri.smg.graphs;
 
+import java.util.AbstractSet;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Iterators;
+
+import cz.afri.smg.collections.IntHashSet;
+import cz.afri.smg.collections.IntSetMultimap;
+import cz.afri.smg.collections.PersistentHashMap;
+import cz.afri.smg.collections.PersistentHashSet;
 
 import cz.afri.smg.graphs.SMGValues.SMGExplicitValue;
 import cz.afri.smg.graphs.SMGValues.SMGKnownExpValue;
@@ -45,13 +47,41 @@ import cz.afri.smg.objects.SMGRegion;
 import cz.afri.smg.types.CType;
 
 class SMG {
-  private final HashSet<SMGObject> objects = new HashSet<>();
-  private final HashSet<Integer> values = new HashSet<>();
-  private final HashSet<SMGEdgeHasValue> hvEdges = new HashSet<>();
-  private final HashMap<Integer, SMGEdgePointsTo> ptEdges = new HashMap<>();
-  private final HashMap<SMGObject, Boolean> objectValidity = new HashMap<>();
-  private final NeqRelation neq = new NeqRelation();
-  private final Map<SMGKnownSymValue, SMGKnownExpValue> explicitValues = new HashMap<>();
+  private PersistentHashSet<SMGObject> objects = PersistentHashSet.empty();
+  private IntHashSet values = new IntHashSet();
+  private PersistentHashSet<SMGEdgeHasValue> hvEdges = PersistentHashSet.empty();
+  private PersistentHashMap<SMGObject, SMGObjectFields> hvEdgesByObject = PersistentHashMap.empty();
+  private PersistentHashMap<Integer, PersistentHashSet<SMGEdgeHasValue>> hvEdgesByValue = PersistentHashMap.empty();
+  private PersistentHashMap<Integer, SMGEdgePointsTo> ptEdges = PersistentHashMap.empty();
+  private PersistentHashMap<SMGObject, PersistentHashMap<Integer, PersistentHashSet<SMGEdgePointsTo>>> ptEdgesByObject =
+      PersistentHashMap.empty();
+  private PersistentHashMap<SMGObject, Boolean> objectValidity = PersistentHashMap.empty();
+  private NeqRelation neq = new NeqRelation();
+  private PersistentHashMap<SMGKnownSymValue, SMGKnownExpValue> explicitValues = PersistentHashMap.empty();
+
+  /**
+   * Token identifying the field maps this SMG may modify in place. Field maps
+   * owned by a different token are shared with another SMG.
+   */
+  private Object fieldsOwner = new Object();
+
+  /**
+   * Set if the value set is shared with another SMG and has to be copied
+   * before being modified.
+   */
+  private boolean valuesShared = false;
+
+  /**
+   * Set if the neq relation is shared with another SMG and has to be copied
+   * before being modified.
+   */
+  private boolean neqShared = false;
+
+  /**
+   * Canonical form of this SMG computed since its last modification, or null.
+   * Every modifying method drops it.
+   */
+  private SMGCanonicalForm canonicalForm = null;
 
   /**
    * A special object representing NULL
@@ -61,7 +91,12 @@ class SMG {
   /**
    * An address of the special object representing null
    */
-  private static final int NULL_ADDRESS = 0;
+  static final int NULL_ADDRESS = 0;
+
+  /**
+   * Null bytes of objects without any fields. Never modified.
+   */
+  private static final BitSet EMPTY_BITSET = new BitSet(0);
 
   /**
    * Constructor.
@@ -75,32 +110,98 @@ class SMG {
     SMGEdgePointsTo nullPointer = new SMGEdgePointsTo(NULL_ADDRESS, NULL_OBJECT, 0);
 
     addObject(NULL_OBJECT);
-    objectValidity.put(NULL_OBJECT, false);
+    objectValidity = objectValidity.plus(NULL_OBJECT, false);
 
     addValue(NULL_ADDRESS);
     addPointsToEdge(nullPointer);
   }
 
   /**
-   * Copy constructor.
+   * Copy constructor. Objects, edges and their indices are persistent
+   * collections shared with the original SMG; both SMGs copy only the parts
+   * they later modify.
    *
    * Consistent after call: yes if pHeap is consistent, no otherwise.
    *
    * @param pHeap Original SMG.
    */
   public SMG(final SMG pHeap) {
-    objects.addAll(pHeap.objects);
-    values.addAll(pHeap.values);
-    hvEdges.addAll(pHeap.hvEdges);
-    ptEdges.putAll(pHeap.ptEdges);
+    this(pHeap, false);
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * Consistent after call: yes if pHeap is consistent, no otherwise.
+   *
+   * @param pHeap Original SMG.
+   * @param pCopyOnWrite If set, the value set and the neq relation are shared
+   * with the original SMG too, and copied by whichever of the two SMGs modifies
+   * them first. Otherwise they are copied immediately.
+   *
+   * In either case, {@link pHeap} is marked so that it does not modify the
+   * shared components in place, so the constructor writes to {@link pHeap}.
+   */
+  SMG(final SMG pHeap, final boolean pCopyOnWrite) {
+    objects = pHeap.objects;
+    hvEdges = pHeap.hvEdges;
+    hvEdgesByObject = pHeap.hvEdgesByObject;
+    hvEdgesByValue = pHeap.hvEdgesByValue;
+    ptEdges = pHeap.ptEdges;
+    ptEdgesByObject = pHeap.ptEdgesByObject;
+
+    objectValidity = pHeap.objectValidity;
+
+    explicitValues = pHeap.explicitValues;
+
+    if (pCopyOnWrite) {
+      values = pHeap.values;
+      neq = pHeap.neq;
+      valuesShared = true;
+      neqShared = true;
+      pHeap.valuesShared = true;
+      pHeap.neqShared = true;
+    } else {
+      values = new IntHashSet(pHeap.values);
+      neq = new NeqRelation(pHeap.neq);
+    }
+
+    // The field maps are now shared, so the original must not modify them in place either
+    pHeap.fieldsOwner = new Object();
 
-    objectValidity.putAll(pHeap.objectValidity);
+    canonicalForm = pHeap.canonicalForm;
+  }
 
-    explicitValues.putAll(pHeap.explicitValues);
+  /**
+   * @return Canonical form of this SMG computed since its last modification,
+   * or null if there is none
+   */
+  final SMGCanonicalForm getCachedCanonicalForm() {
+    return canonicalForm;
+  }
 
-    neq.putAll(pHeap.neq);
+  /**
+   * Remembers {@link pForm} as the canonical form of this SMG until its next
+   * modification.
+   *
+   * @param pForm Canonical form of this SMG
+   */
+  final void setCachedCanonicalForm(final SMGCanonicalForm pForm) {
+    canonicalForm = pForm;
   }
 
+  /**
+   * Drops the cached canonical form. Called by every method modifying the
+   * SMG, including those of subclasses.
+   */
+  final void invalidateCanonicalForm() {
+    canonicalForm = null;
+  }
+
+  /**
+   * Every component maintains its hash code incrementally on modification,
+   * so the hash code of an SMG is obtained in constant time.
+   */
   @Override
   public int hashCode() {
     return Objects.hash(hvEdges, neq, objectValidity, objects, ptEdges, values, explicitValues);
@@ -127,8 +228,14 @@ class SMG {
    * @param pValue Value to remove
    */
   public final void removeValue(final Integer pValue) {
-    values.remove(pValue);
-    neq.removeValue(pValue);
+    invalidateCanonicalForm();
+    int value = pValue.intValue();
+    if (values.contains(value)) {
+      getWritableValues().remove(value);
+    }
+    if (neq.hasNeqs(value)) {
+      getWritableNeq().removeValue(value);
+    }
   }
   /**
    * Remove {@link pObj} from the SMG. This method does not remove
@@ -139,12 +246,14 @@ class SMG {
    * @param pObj Object to remove
    */
   public final void removeObject(final SMGObject pObj) {
-    objects.remove(pObj);
-    objectValidity.remove(pObj);
+    invalidateCanonicalForm();
+    objects = objects.minus(pObj);
+    objectValidity = objectValidity.minus(pObj);
   }
 
   /**
-   * Remove {@link pObj} and all edges leading from/to it from the SMG
+   * Remove {@link pObj} and all edges leading from/to it from the SMG. Takes
+   * time proportional to the number of edges of the object.
    *
    * Keeps consistency: no
    *
@@ -152,17 +261,102 @@ class SMG {
    */
   public final void removeObjectAndEdges(final SMGObject pObj) {
     removeObject(pObj);
-    Iterator<SMGEdgeHasValue> hvIter = hvEdges.iterator();
-    Iterator<SMGEdgePointsTo> ptIter = ptEdges.values().iterator();
-    while (hvIter.hasNext()) {
-      if (hvIter.next().getObject() == pObj) {
-        hvIter.remove();
+    SMGObjectFields objectEdges = hvEdgesByObject.get(pObj);
+    if (objectEdges != null) {
+      hvEdgesByObject = hvEdgesByObject.minus(pObj);
+      for (SMGEdgeHasValue edge : objectEdges) {
+        hvEdges = hvEdges.minus(edge);
+        unindexHasValueEdgeByValue(edge);
+      }
+    }
+    removePointsToEdgesTo(pObj);
+  }
+
+  /**
+   * Remove all objects in {@link pObjects} and all edges leading from/to them
+   * from the SMG. Equivalent to calling {@link #removeObjectAndEdges} for
+   * each of the objects, but the value index of Has-Value edges is updated
+   * once per value, not once per edge.
+   *
+   * Keeps consistency: no
+   *
+   * @param pObjects Objects to remove
+   */
+  final void removeObjectsAndEdges(final Iterable<? extends SMGObject> pObjects) {
+    Map<Integer, PersistentHashSet<SMGEdgeHasValue>> valueEdgesToUpdate = new HashMap<>();
+    for (SMGObject object : pObjects) {
+      removeObject(object);
+      SMGObjectFields objectEdges = hvEdgesByObject.get(object);
+      if (objectEdges != null) {
+        hvEdgesByObject = hvEdgesByObject.minus(object);
+        for (SMGEdgeHasValue edge : objectEdges) {
+          hvEdges = hvEdges.minus(edge);
+          Integer value = edge.getValue();
+          PersistentHashSet<SMGEdgeHasValue> valueEdges = valueEdgesToUpdate.get(value);
+          if (valueEdges == null) {
+            valueEdges = hvEdgesByValue.get(value);
+          }
+          valueEdgesToUpdate.put(value, valueEdges.minus(edge));
+        }
+      }
+      removePointsToEdgesTo(object);
+    }
+
+    for (Map.Entry<Integer, PersistentHashSet<SMGEdgeHasValue>> entry : valueEdgesToUpdate.entrySet()) {
+      if (entry.getValue().isEmpty()) {
+        hvEdgesByValue = hvEdgesByValue.minus(entry.getKey());
+        valueUnreferenced(entry.getKey());
+      } else {
+        hvEdgesByValue = hvEdgesByValue.plus(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Called after the last Has-Value edge holding {@link pValue} was removed.
+   * Does nothing by default.
+   *
+   * @param pValue Value no longer held by any field
+   */
+  void valueUnreferenced(final int pValue) {
+  }
+
+  /**
+   * Checks whether a Has-Value edge holds an address of {@link pObject}.
+   * Takes time proportional to the number of addresses of the object.
+   *
+   * @param pObject An object
+   * @return True if a field of some object points to {@link pObject}
+   */
+  final boolean isReferenced(final SMGObject pObject) {
+    PersistentHashMap<Integer, PersistentHashSet<SMGEdgePointsTo>> objectPointers = ptEdgesByObject.get(pObject);
+    if (objectPointers == null) {
+      return false;
+    }
+    for (PersistentHashSet<SMGEdgePointsTo> atOffset : objectPointers.values()) {
+      for (SMGEdgePointsTo edge : atOffset) {
+        if (hvEdgesByValue.containsKey(edge.getValue())) {
+          return true;
+        }
       }
     }
+    return false;
+  }
 
-    while (ptIter.hasNext()) {
-      if (ptIter.next().getObject() == pObj) {
-        ptIter.remove();
+  /**
+   * Remove all Points-To edges leading to {@link pObj}, using the
+   * per-object index.
+   *
+   * @param pObj Target object of the removed edges
+   */
+  private void removePointsToEdgesTo(final SMGObject pObj) {
+    PersistentHashMap<Integer, PersistentHashSet<SMGEdgePointsTo>> objectPointers = ptEdgesByObject.get(pObj);
+    if (objectPointers != null) {
+      ptEdgesByObject = ptEdgesByObject.minus(pObj);
+      for (PersistentHashSet<SMGEdgePointsTo> atOffset : objectPointers.values()) {
+        for (SMGEdgePointsTo edge : atOffset) {
+          ptEdges = ptEdges.minus(edge.getValue());
+        }
       }
     }
   }
@@ -177,8 +371,9 @@ class SMG {
    *
    */
   public final void addObject(final SMGObject pObj, final boolean pValidity) {
-    objects.add(pObj);
-    objectValidity.put(pObj, pValidity);
+    invalidateCanonicalForm();
+    objects = objects.plus(pObj);
+    objectValidity = objectValidity.plus(pObj, pValidity);
   }
 
   /**
@@ -189,7 +384,39 @@ class SMG {
    * @param pValue  Value to add.
    */
   public final void addValue(final Integer pValue) {
-    values.add(pValue);
+    invalidateCanonicalForm();
+    int value = pValue.intValue();
+    if (!values.contains(value)) {
+      getWritableValues().add(value);
+    }
+  }
+
+  /**
+   * Returns the value set of this SMG, copying it first if it is shared with
+   * another SMG.
+   *
+   * @return Value set which may be modified in place
+   */
+  private IntHashSet getWritableValues() {
+    if (valuesShared) {
+      values = new IntHashSet(values);
+      valuesShared = false;
+    }
+    return values;
+  }
+
+  /**
+   * Returns the neq relation of this SMG, copying it first if it is shared
+   * with another SMG.
+   *
+   * @return Neq relation which may be modified in place
+   */
+  private NeqRelation getWritableNeq() {
+    if (neqShared) {
+      neq = new NeqRelation(neq);
+      neqShared = false;
+    }
+    return neq;
   }
 
   /**
@@ -200,7 +427,52 @@ class SMG {
    * @param pEdge Points-To edge to add.
    */
   public final void addPointsToEdge(final SMGEdgePointsTo pEdge) {
-    ptEdges.put(pEdge.getValue(), pEdge);
+    invalidateCanonicalForm();
+    SMGEdgePointsTo replaced = ptEdges.get(pEdge.getValue());
+    ptEdges = ptEdges.plus(pEdge.getValue(), pEdge);
+    if (replaced != null) {
+      unindexPointsToEdge(replaced);
+    }
+
+    PersistentHashMap<Integer, PersistentHashSet<SMGEdgePointsTo>> objectPointers =
+        ptEdgesByObject.get(pEdge.getObject());
+    if (objectPointers == null) {
+      objectPointers = PersistentHashMap.empty();
+    }
+    PersistentHashSet<SMGEdgePointsTo> atOffset = objectPointers.get(pEdge.getOffset());
+    if (atOffset == null) {
+      atOffset = PersistentHashSet.empty();
+    }
+    objectPointers = objectPointers.plus(pEdge.getOffset(), atOffset.plus(pEdge));
+    ptEdgesByObject = ptEdgesByObject.plus(pEdge.getObject(), objectPointers);
+  }
+
+  /**
+   * Removes {@link pEdge} from the per-object Points-To edge index.
+   *
+   * @param pEdge Points-To edge just removed from the Points-To edge map
+   */
+  private void unindexPointsToEdge(final SMGEdgePointsTo pEdge) {
+    PersistentHashMap<Integer, PersistentHashSet<SMGEdgePointsTo>> objectPointers =
+        ptEdgesByObject.get(pEdge.getObject());
+    if (objectPointers == null) {
+      return;
+    }
+    PersistentHashSet<SMGEdgePointsTo> atOffset = objectPointers.get(pEdge.getOffset());
+    if (atOffset == null) {
+      return;
+    }
+    atOffset = atOffset.minus(pEdge);
+    if (atOffset.isEmpty()) {
+      objectPointers = objectPointers.minus(pEdge.getOffset());
+    } else {
+      objectPointers = objectPointers.plus(pEdge.getOffset(), atOffset);
+    }
+    if (objectPointers.isEmpty()) {
+      ptEdgesByObject = ptEdgesByObject.minus(pEdge.getObject());
+    } else {
+      ptEdgesByObject = ptEdgesByObject.plus(pEdge.getObject(), objectPointers);
+    }
   }
 
   /**
@@ -211,7 +483,12 @@ class SMG {
    * @param pEdge Has-Value edge to add
    */
   public final void addHasValueEdge(final SMGEdgeHasValue pEdge) {
-    hvEdges.add(pEdge);
+    invalidateCanonicalForm();
+    PersistentHashSet<SMGEdgeHasValue> newEdges = hvEdges.plus(pEdge);
+    if (newEdges != hvEdges) {
+      hvEdges = newEdges;
+      indexHasValueEdge(pEdge);
+    }
   }
 
   /**
@@ -222,7 +499,87 @@ class SMG {
    * @param pEdge Has-Value edge to remove
    */
   public final void removeHasValueEdge(final SMGEdgeHasValue pEdge) {
-    hvEdges.remove(pEdge);
+    invalidateCanonicalForm();
+    PersistentHashSet<SMGEdgeHasValue> newEdges = hvEdges.minus(pEdge);
+    if (newEdges != hvEdges) {
+      hvEdges = newEdges;
+      unindexHasValueEdge(pEdge);
+      hasValueEdgeRemoved();
+    }
+  }
+
+  /**
+   * Called after {@link #removeHasValueEdge(SMGEdgeHasValue)} removed an
+   * edge. Does nothing by default.
+   */
+  void hasValueEdgeRemoved() {
+  }
+
+  /**
+   * Adds {@link pEdge} to the per-object and per-value Has-Value edge indices.
+   *
+   * @param pEdge Has-Value edge already present in the Has-Value edge set
+   */
+  private void indexHasValueEdge(final SMGEdgeHasValue pEdge) {
+    getWritableFields(pEdge.getObject()).add(pEdge);
+
+    PersistentHashSet<SMGEdgeHasValue> valueEdges = hvEdgesByValue.get(pEdge.getValue());
+    if (valueEdges == null) {
+      valueEdges = PersistentHashSet.empty();
+    }
+    hvEdgesByValue = hvEdgesByValue.plus(pEdge.getValue(), valueEdges.plus(pEdge));
+  }
+
+  /**
+   * Returns the field map of {@link pObject} which this SMG may modify in
+   * place, copying a field map shared with another SMG or creating an empty one
+   * if necessary.
+   *
+   * @param pObject An object
+   * @return Field map of pObject owned by this SMG
+   */
+  private SMGObjectFields getWritableFields(final SMGObject pObject) {
+    SMGObjectFields objectEdges = hvEdgesByObject.get(pObject);
+    if (objectEdges != null && objectEdges.isOwnedBy(fieldsOwner)) {
+      return objectEdges;
+    }
+
+    if (objectEdges == null) {
+      objectEdges = new SMGObjectFields(fieldsOwner);
+    } else {
+      objectEdges = new SMGObjectFields(objectEdges, fieldsOwner);
+    }
+    hvEdgesByObject = hvEdgesByObject.plus(pObject, objectEdges);
+    return objectEdges;
+  }
+
+  /**
+   * Removes {@link pEdge} from the per-object and per-value Has-Value edge indices.
+   *
+   * @param pEdge Has-Value edge just removed from the Has-Value edge set
+   */
+  private void unindexHasValueEdge(final SMGEdgeHasValue pEdge) {
+    if (hvEdgesByObject.containsKey(pEdge.getObject())) {
+      SMGObjectFields objectEdges = getWritableFields(pEdge.getObject());
+      objectEdges.remove(pEdge);
+      if (objectEdges.isEmpty()) {
+        hvEdgesByObject = hvEdgesByObject.minus(pEdge.getObject());
+      }
+    }
+    unindexHasValueEdgeByValue(pEdge);
+  }
+
+  private void unindexHasValueEdgeByValue(final SMGEdgeHasValue pEdge) {
+    PersistentHashSet<SMGEdgeHasValue> valueEdges = hvEdgesByValue.get(pEdge.getValue());
+    if (valueEdges != null) {
+      valueEdges = valueEdges.minus(pEdge);
+      if (valueEdges.isEmpty()) {
+        hvEdgesByValue = hvEdgesByValue.minus(pEdge.getValue());
+        valueUnreferenced(pEdge.getValue());
+      } else {
+        hvEdgesByValue = hvEdgesByValue.plus(pEdge.getValue(), valueEdges);
+      }
+    }
   }
 
   /**
@@ -233,7 +590,30 @@ class SMG {
    * @param pValue the Source of the Points-To edge to be removed
    */
   public final void removePointsToEdge(final Integer pValue) {
-    ptEdges.remove(pValue);
+    invalidateCanonicalForm();
+    SMGEdgePointsTo removed = ptEdges.get(pValue);
+    if (removed != null) {
+      ptEdges = ptEdges.minus(pValue);
+      unindexPointsToEdge(removed);
+    }
+  }
+
+  /**
+   * Remove all values not contained in {@link pKept}, together with the
+   * Points-To edges leading from them. This method does not remove Has-Value
+   * edges leading to the removed values.
+   *
+   * Keeps consistency: no
+   *
+   * @param pKept Values to keep
+   */
+  final void removeValuesExcept(final IntHashSet pKept) {
+    for (int value : values.toIntArray()) {
+      if (!pKept.contains(value)) {
+        removePointsToEdge(value);
+        removeValue(value);
+      }
+    }
   }
 
   /**
@@ -251,7 +631,8 @@ class SMG {
       throw new IllegalArgumentException("Object [" + pObject + "] not in SMG");
     }
 
-    objectValidity.put(pObject, pValidity);
+    invalidateCanonicalForm();
+    objectValidity = objectValidity.plus(pObject, pValidity);
   }
 
   /**
@@ -261,8 +642,13 @@ class SMG {
    * Keeps consistency: no
    */
   public void replaceHVSet(final Set<SMGEdgeHasValue> pNewHV) {
-    hvEdges.clear();
-    hvEdges.addAll(pNewHV);
+    invalidateCanonicalForm();
+    hvEdges = PersistentHashSet.empty();
+    hvEdgesByObject = PersistentHashMap.empty();
+    hvEdgesByValue = PersistentHashMap.empty();
+    for (SMGEdgeHasValue edge : pNewHV) {
+      addHasValueEdge(edge);
+    }
   }
 
   /**
@@ -274,7 +660,23 @@ class SMG {
    * Keeps consistency: no
    */
   public void addNeqRelation(final Integer pV1, final Integer pV2) {
-    neq.addRelation(pV1, pV2);
+    invalidateCanonicalForm();
+    getWritableNeq().addRelation(pV1, pV2);
+  }
+
+  /**
+   * Removes the neq relation between two values from the SMG
+   *
+   * @param pV1
+   * @param pV2
+   *
+   * Keeps consistency: yes
+   */
+  final void removeNeqRelation(final int pV1, final int pV2) {
+    if (neq.neqExists(pV1, pV2)) {
+      invalidateCanonicalForm();
+      getWritableNeq().removeRelation(pV1, pV2);
+    }
   }
 
   /* ********************************************* */
@@ -352,7 +754,87 @@ class SMG {
    * @return A set of Has-Value edges for which the criteria in p hold
    */
   public final Iterable<SMGEdgeHasValue> getHVEdges(final SMGEdgeHasValueFilter pFilter) {
-    return Iterables.filter(Collections.unmodifiableSet(hvEdges), pFilter.asPredicate());
+    return new Iterable<SMGEdgeHasValue>() {
+      @Override
+      public Iterator<SMGEdgeHasValue> iterator() {
+        return Iterators.filter(getHVEdgesCandidates(pFilter).iterator(), pFilter.asPredicate());
+      }
+    };
+  }
+
+  /**
+   * Obtains the smallest indexed set of Has-Value edges which is guaranteed to
+   * contain all edges satisfying {@link pFilter}. The filter is consulted when
+   * iteration starts, so filters modified after the call behave as before.
+   *
+   * @param pFilter Filtering object
+   * @return A collection of Has-Value edges which is a superset of the filtered ones
+   */
+  private Iterable<SMGEdgeHasValue> getHVEdgesCandidates(final SMGEdgeHasValueFilter pFilter) {
+    SMGObject object = pFilter.getObject();
+    Integer value = pFilter.getRequiredValue();
+    PersistentHashSet<SMGEdgeHasValue> valueEdges = null;
+
+    if (value != null) {
+      valueEdges = hvEdgesByValue.get(value);
+      if (valueEdges == null) {
+        return Collections.emptySet();
+      }
+    }
+
+    if (object == null) {
+      if (valueEdges != null) {
+        return valueEdges;
+      }
+      return hvEdges;
+    }
+
+    SMGObjectFields objectEdges = hvEdgesByObject.get(object);
+    if (objectEdges == null) {
+      return Collections.emptySet();
+    }
+
+    Integer offset = pFilter.getOffset();
+    if (offset != null) {
+      return objectEdges.atOffset(offset);
+    }
+    if (valueEdges != null && valueEdges.size() < objectEdges.size()) {
+      return valueEdges;
+    }
+    return objectEdges;
+  }
+
+  /**
+   * Getter for obtaining all Has-Value edges leading from {@link pObject}
+   * without going through a filter. Constant.
+   *
+   * @param pObject Object the fields belong to
+   * @return Has-Value edges leading from the object
+   */
+  final Iterable<SMGEdgeHasValue> getHVEdgesOf(final SMGObject pObject) {
+    SMGObjectFields objectEdges = hvEdgesByObject.get(pObject);
+    if (objectEdges == null) {
+      return Collections.emptySet();
+    }
+    return objectEdges;
+  }
+
+  /**
+   * Getter for obtaining Has-Value edges leading from {@link pObject} whose
+   * fields overlap the byte range [pStart, pEnd). Constant.
+   *
+   * @param pObject Object the fields belong to
+   * @param pStart First byte of the range
+   * @param pEnd First byte after the range
+   * @return Has-Value edges overlapping the range, ordered by offset
+   */
+  public final Iterable<SMGEdgeHasValue> getHVEdgesOverlapping(final SMGObject pObject, final int pStart,
+                                                               final int pEnd) {
+    SMGObjectFields objectEdges = hvEdgesByObject.get(pObject);
+    if (objectEdges == null) {
+      return Collections.emptySet();
+    }
+    return objectEdges.overlapping(pStart, pEnd);
   }
 
   /**
@@ -375,7 +857,80 @@ class SMG {
    * @return Unmodifiable view on Points-To edges set.
    */
   public final Set<SMGEdgePointsTo> getPTEdges() {
-    return Collections.unmodifiableSet(new HashSet<>(ptEdges.values()));
+    return new AbstractSet<SMGEdgePointsTo>() {
+      @Override
+      public Iterator<SMGEdgePointsTo> iterator() {
+        return ptEdges.values().iterator();
+      }
+
+      @Override
+      public int size() {
+        return ptEdges.size();
+      }
+
+      @Override
+      public boolean contains(final Object pObject) {
+        if (!(pObject instanceof SMGEdgePointsTo)) {
+          return false;
+        }
+        SMGEdgePointsTo edge = (SMGEdgePointsTo) pObject;
+        return edge.equals(ptEdges.get(edge.getValue()));
+      }
+    };
+  }
+
+  /**
+   * Getter for obtaining an unmodifiable set of Points-To edges currently
+   * leading to the object {@link pObject}. Constant.
+   *
+   * @param pObject A target object.
+   * @return Unmodifiable set of Points-To edges pointing to {@link pObject}.
+   */
+  public final Set<SMGEdgePointsTo> getPTEdgesToObject(final SMGObject pObject) {
+    final PersistentHashMap<Integer, PersistentHashSet<SMGEdgePointsTo>> objectPointers =
+        ptEdgesByObject.get(pObject);
+    if (objectPointers == null) {
+      return Collections.emptySet();
+    }
+    if (objectPointers.size() == 1) {
+      return objectPointers.values().iterator().next();
+    }
+    return new AbstractSet<SMGEdgePointsTo>() {
+      @Override
+      public Iterator<SMGEdgePointsTo> iterator() {
+        return Iterables.concat(objectPointers.values()).iterator();
+      }
+
+      @Override
+      public int size() {
+        int size = 0;
+        for (PersistentHashSet<SMGEdgePointsTo> atOffset : objectPointers.values()) {
+          size += atOffset.size();
+        }
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Get the symbolic value, that represents the address pointing to the given
+   * memory with the given offset, if it exists. Constant.
+   *
+   * @param pObject get address belonging to this memory.
+   * @param pOffset get address with this offset relative to the beginning of the memory.
+   * @return Address of the given field, or null, if such an address does not yet exist in the SMG.
+   */
+  public final Integer getAddress(final SMGObject pObject, final Integer pOffset) {
+    PersistentHashMap<Integer, PersistentHashSet<SMGEdgePointsTo>> objectPointers = ptEdgesByObject.get(pObject);
+    if (objectPointers == null) {
+      return null;
+    }
+
+    PersistentHashSet<SMGEdgePointsTo> pointers = objectPointers.get(pOffset);
+    if (pointers == null) {
+      return null;
+    }
+    return pointers.iterator().next().getValue();
   }
 
   /**
@@ -423,7 +978,9 @@ class SMG {
   /**
    * Obtains a bitset signifying where the object bytes are nullified.
    *
-   * Constant.
+   * Constant. The bitset is maintained together with the Has-Value edges of
+   * the object, so the call does not scan any edges. The returned bitset is
+   * a copy, so callers are free to modify it.
    *
    * @param pObj SMGObject for which the information is to be obtained
    * @return A bitset. A bit has 1 value if the appropriate byte is guaranteed
@@ -431,15 +988,22 @@ class SMG {
    * 0 otherwise.
    */
   public BitSet getNullBytesForObject(final SMGObject pObj) {
-    BitSet bs = new BitSet(pObj.getSize());
-    bs.clear();
-    SMGEdgeHasValueFilter objectFilter = SMGEdgeHasValueFilter.objectFilter(pObj).filterHavingValue(getNullValue());
+    return (BitSet) getNullBytesView(pObj).clone();
+  }
 
-    for (SMGEdgeHasValue edge : getHVEdges(objectFilter)) {
-      bs.set(edge.getOffset(), edge.getOffset() + edge.getSizeInBytes());
+  /**
+   * Obtains the cached bitset of nullified bytes of {@link pObj}. The bitset
+   * is shared with the SMG and must not be modified.
+   *
+   * @param pObj SMGObject for which the information is to be obtained
+   * @return A bitset of nullified bytes, as in {@link #getNullBytesForObject(SMGObject)}
+   */
+  private BitSet getNullBytesView(final SMGObject pObj) {
+    SMGObjectFields objectEdges = hvEdgesByObject.get(pObj);
+    if (objectEdges == null) {
+      return EMPTY_BITSET;
     }
-
-    return bs;
+    return objectEdges.getNullBytes();
   }
 
   /**
@@ -481,7 +1045,7 @@ class SMG {
   }
 
   private boolean isCoveredByNullifiedBlocks(final SMGObject pObject, final int pOffset, final int size) {
-    BitSet objectNullBytes = getNullBytesForObject(pObject);
+    BitSet objectNullBytes = getNullBytesView(pObject);
     int expectedMinClear = pOffset + size;
 
     return (objectNullBytes.nextClearBit(pOffset) >= expectedMinClear);
@@ -492,22 +1056,25 @@ class SMG {
       return;
     }
 
+    invalidateCanonicalForm();
     if (pV2 == NULL_ADDRESS) {
       mergeValues(pV2, pV1);
     }
 
-    neq.mergeValues(pV1, pV2);
+    if (neq.hasNeqs(pV2)) {
+      getWritableNeq().mergeValues(pV1, pV2);
+    }
     removeValue(pV2);
-    HashSet<SMGEdgeHasValue> newHvEdges = new HashSet<>();
-    for (SMGEdgeHasValue hv : hvEdges) {
-      if (hv.getValue() != pV2) {
-        newHvEdges.add(hv);
-      } else {
-        newHvEdges.add(new SMGEdgeHasValue(hv.getSizeInBytes(), hv.getOffset(), hv.getObject(), pV1));
-      }
+
+    PersistentHashSet<SMGEdgeHasValue> edgesToRewrite = hvEdgesByValue.get(pV2);
+    if (edgesToRewrite == null) {
+      return;
+    }
+
+    for (SMGEdgeHasValue hv : edgesToRewrite) {
+      removeHasValueEdge(hv);
+      addHasValueEdge(new SMGEdgeHasValue(hv.getSizeInBytes(), hv.getOffset(), hv.getObject(), pV1));
     }
-    hvEdges.clear();
-    hvEdges.addAll(newHvEdges);
   }
 
   public boolean haveNeqRelation(final Integer pV1, final Integer pV2) {
@@ -519,7 +1086,8 @@ class SMG {
   }
 
   public void putExplicit(final SMGKnownSymValue pKey, final SMGKnownExpValue pValue) {
-    explicitValues.put(pKey, pValue);
+    invalidateCanonicalForm();
+    explicitValues = explicitValues.plus(pKey, pValue);
   }
 
   public SMGExplicitValue getExplicit(final SMGKnownSymValue pKey) {
@@ -530,7 +1098,8 @@ class SMG {
   }
 
   public void clearExplicit(final SMGKnownSymValue pKey) {
-    explicitValues.remove(pKey);
+    invalidateCanonicalForm();
+    explicitValues = explicitValues.minus(pKey);
   }
 
   public boolean isIdenticalTo(final SMG pOther) {
@@ -546,15 +1115,32 @@ final class NeqRelation {
    * The Multimap is used as Bi-Map, i.e. each pair (K,V) is also inserted as
    * pair (V,K). We avoid self-references like (A,A).
    */
-  private final SetMultimap<Integer, Integer> smgValues = HashMultimap.create();
+  private final IntSetMultimap smgValues;
+
+  NeqRelation() {
+    smgValues = new IntSetMultimap();
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * @param pNeq Original relation
+   */
+  NeqRelation(final NeqRelation pNeq) {
+    smgValues = new IntSetMultimap(pNeq.smgValues);
+  }
 
   @Override
   public int hashCode() {
     return smgValues.hashCode();
   }
 
-  public Set<Integer> getNeqsForValue(final Integer pV) {
-    return Collections.unmodifiableSet(smgValues.get(pV));
+  public Set<Integer> getNeqsForValue(final int pV) {
+    return smgValues.get(pV);
+  }
+
+  public boolean hasNeqs(final int pV) {
+    return !smgValues.get(pV).isEmpty();
   }
 
   @Override
@@ -563,13 +1149,13 @@ final class NeqRelation {
       return false;
     }
     NeqRelation other = (NeqRelation) obj;
-    return other.smgValues != null && smgValues.equals(other.smgValues);
+    return smgValues.equals(other.smgValues);
   }
 
-  public void addRelation(final Integer pOne, final Integer pTwo) {
+  public void addRelation(final int pOne, final int pTwo) {
 
     // we do not want self-references
-    if (pOne.intValue() == pTwo.intValue()) {
+    if (pOne == pTwo) {
       return;
     }
 
@@ -581,27 +1167,27 @@ final class NeqRelation {
     smgValues.putAll(pNeq.smgValues);
   }
 
-  public void removeRelation(final Integer pOne, final Integer pTwo) {
+  public void removeRelation(final int pOne, final int pTwo) {
     smgValues.remove(pOne, pTwo);
     smgValues.remove(pTwo, pOne);
   }
 
-  public boolean neqExists(final Integer pOne, final Integer pTwo) {
+  public boolean neqExists(final int pOne, final int pTwo) {
     return smgValues.containsEntry(pOne, pTwo);
   }
 
-  public void removeValue(final Integer pOne) {
-    for (Integer other : smgValues.get(pOne)) {
-      smgValues.get(other).remove(pOne);
+  public void removeValue(final int pOne) {
+    for (int other : smgValues.getValues(pOne)) {
+      smgValues.remove(other, pOne);
     }
     smgValues.removeAll(pOne);
   }
 
   /** transform all relations from (A->C) towards (A->B) and delete C */
-  public void mergeValues(final Integer pB, final Integer pC) {
-    List<Integer> values = ImmutableList.copyOf(smgValues.get(pC));
+  public void mergeValues(final int pB, final int pC) {
+    int[] values = smgValues.getValues(pC);
     removeValue(pC);
-    for (Integer value : values) {
+    for (int value : values) {
       addRelation(pB, value);
     }
   }
@@ -610,4 +1196,4 @@ final class NeqRelation {
   public String toString() {
     return "neq_rel=" + smgValues.toString();
   }
-}
\ No newline at end of file
+}
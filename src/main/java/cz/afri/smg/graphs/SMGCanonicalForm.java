@@ -0,0 +1,336 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.graphs;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import cz.afri.smg.collections.IntIntHashMap;
+import cz.afri.smg.graphs.SMGValues.SMGExplicitValue;
+import cz.afri.smg.graphs.SMGValues.SMGKnownSymValue;
+import cz.afri.smg.objects.SMGObject;
+import cz.afri.smg.objects.SMGObjectVisitor;
+import cz.afri.smg.objects.SMGRegion;
+import cz.afri.smg.objects.sll.SMGSingleLinkedList;
+import cz.afri.smg.objects.tree.SimpleBinaryTree;
+
+/**
+ * A canonical form of an SMG, which does not depend on the numbering of
+ * symbolic values or on the identity of objects. The parts of two SMGs
+ * reachable from global and stack variables have equal canonical forms iff
+ * they are isomorphic, including the types of Has-Value edges. Of the
+ * unreachable parts, only the numbers of objects and values are recorded, so
+ * SMGs whose unreachable parts differ in shape only may have equal forms.
+ * The memory leak flag is recorded as well.
+ *
+ * The form is computed by a single traversal starting from the global
+ * variables ordered by name and the stack frames ordered from the bottom, with
+ * the variables of each frame ordered by name. Objects and values are
+ * numbered in the order in which the traversal meets them, and Has-Value
+ * edges of each object are visited ordered by offset, size and type. The
+ * traversal takes time linear in the size of the SMG, up to sorting of
+ * variables and of the fields of each object.
+ *
+ * The 64-bit fingerprint of the form is suitable for hashing states; equal
+ * fingerprints of different forms are possible, but unlikely.
+ */
+public final class SMGCanonicalForm {
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final int INT_BITS = 32;
+
+  private final ImmutableList<Object> tokens;
+  private final long fingerprint;
+
+  private SMGCanonicalForm(final List<Object> pTokens) {
+    tokens = ImmutableList.copyOf(pTokens);
+
+    long hash = FNV_OFFSET_BASIS;
+    for (Object token : tokens) {
+      hash = (hash ^ token.hashCode()) * FNV_PRIME;
+    }
+    fingerprint = hash;
+  }
+
+  /**
+   * Computes the canonical form of {@link pSmg}. The form is remembered by the
+   * SMG until it is modified, so repeated calls for an unmodified SMG, or for
+   * its unmodified copies, return the same form without a traversal.
+   *
+   * @param pSmg An SMG
+   * @return The canonical form of pSmg
+   */
+  public static SMGCanonicalForm of(final ReadableSMG pSmg) {
+    if (!(pSmg instanceof SMG)) {
+      return new Canonicalizer(pSmg).run();
+    }
+
+    SMG smg = (SMG) pSmg;
+    SMGCanonicalForm form = smg.getCachedCanonicalForm();
+    if (form == null) {
+      form = new Canonicalizer(pSmg).run();
+      smg.setCachedCanonicalForm(form);
+    }
+    return form;
+  }
+
+  public long getFingerprint() {
+    return fingerprint;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (fingerprint ^ (fingerprint >>> INT_BITS));
+  }
+
+  @Override
+  public boolean equals(final Object pOther) {
+    if (this == pOther) {
+      return true;
+    }
+    if (!(pOther instanceof SMGCanonicalForm)) {
+      return false;
+    }
+    SMGCanonicalForm other = (SMGCanonicalForm) pOther;
+    return fingerprint == other.fingerprint && tokens.equals(other.tokens);
+  }
+
+  @Override
+  public String toString() {
+    return "SMGCanonicalForm [fingerprint=" + Long.toHexString(fingerprint) + ", " + tokens + "]";
+  }
+
+  /**
+   * Orders Has-Value edges of a single object by offset, then by size, then
+   * by the class of the type.
+   */
+  private static final Comparator<SMGEdgeHasValue> FIELD_ORDER = new Comparator<SMGEdgeHasValue>() {
+    @Override
+    public int compare(final SMGEdgeHasValue pEdge1, final SMGEdgeHasValue pEdge2) {
+      if (pEdge1.getOffset() != pEdge2.getOffset()) {
+        return Integer.compare(pEdge1.getOffset(), pEdge2.getOffset());
+      }
+      if (pEdge1.getSizeInBytes() != pEdge2.getSizeInBytes()) {
+        return Integer.compare(pEdge1.getSizeInBytes(), pEdge2.getSizeInBytes());
+      }
+      return pEdge1.getType().getClass().getName().compareTo(pEdge2.getType().getClass().getName());
+    }
+  };
+
+  /**
+   * Performs the traversal, numbering objects and values and recording the
+   * tokens of the canonical form.
+   */
+  private static final class Canonicalizer extends SMGObjectVisitor {
+    private static final String GLOBALS = "globals";
+    private static final String FRAME = "frame";
+    private static final String NO_RETURN = "void";
+    private static final String OBJECT = "object";
+    private static final String REGION = "region";
+    private static final String LIST = "sll";
+    private static final String TREE = "tree";
+    private static final String NEW_VALUE = "value";
+    private static final String UNKNOWN = "unknown";
+    private static final String POINTER = "pointer";
+    private static final String NO_POINTER = "nonpointer";
+    private static final String NEQ = "neq";
+    private static final String UNREACHABLE = "unreachable";
+
+    private final ReadableSMG smg;
+    private final List<Object> tokens = new ArrayList<>();
+    private final Map<SMGObject, Integer> objectIds = new HashMap<>();
+    private final ArrayDeque<SMGObject> worklist = new ArrayDeque<>();
+    private final IntIntHashMap valueIds = new IntIntHashMap();
+
+    /**
+     * Values in the order of their numbering.
+     */
+    private final List<Integer> values = new ArrayList<>();
+
+    Canonicalizer(final ReadableSMG pSmg) {
+      smg = pSmg;
+      objectIds.put(smg.getNullObject(), 0);
+      valueIds.put(smg.getNullValue(), 0);
+      values.add(smg.getNullValue());
+    }
+
+    SMGCanonicalForm run() {
+      Map<String, SMGRegion> globals = smg.getGlobalObjects();
+      List<String> globalNames = new ArrayList<>(globals.keySet());
+      Collections.sort(globalNames);
+      tokens.add(GLOBALS);
+      for (String name : globalNames) {
+        tokens.add(name);
+        tokens.add(getObjectId(globals.get(name)));
+      }
+
+      Iterator<CLangStackFrame> frames = smg.getStackFrames().descendingIterator();
+      while (frames.hasNext()) {
+        CLangStackFrame frame = frames.next();
+        tokens.add(FRAME);
+        tokens.add(frame.getFunctionDeclaration().getName());
+        Map<String, SMGRegion> variables = frame.getVariables();
+        List<String> variableNames = new ArrayList<>(variables.keySet());
+        Collections.sort(variableNames);
+        for (String name : variableNames) {
+          tokens.add(name);
+          tokens.add(getObjectId(variables.get(name)));
+        }
+        SMGRegion returnObject = frame.getReturnObject();
+        if (returnObject == null) {
+          tokens.add(NO_RETURN);
+        } else {
+          tokens.add(getObjectId(returnObject));
+        }
+      }
+
+      while (!worklist.isEmpty()) {
+        describeObject(worklist.poll());
+      }
+
+      describeNeqRelations();
+
+      tokens.add(UNREACHABLE);
+      tokens.add(smg.getObjects().size() - objectIds.size());
+      tokens.add(smg.getValues().size() - values.size());
+      tokens.add(smg.hasMemoryLeaks());
+
+      return new SMGCanonicalForm(tokens);
+    }
+
+    private int getObjectId(final SMGObject pObject) {
+      Integer id = objectIds.get(pObject);
+      if (id == null) {
+        id = objectIds.size();
+        objectIds.put(pObject, id);
+        worklist.add(pObject);
+      }
+      return id;
+    }
+
+    /**
+     * Records the number of {@link pValue}. A value met for the first time is
+     * numbered implicitly by the order of meeting, and its explicit value and
+     * the address it represents are recorded instead.
+     */
+    private void describeValue(final int pValue) {
+      if (valueIds.containsKey(pValue)) {
+        tokens.add(valueIds.get(pValue, 0));
+        return;
+      }
+
+      valueIds.put(pValue, values.size());
+      values.add(pValue);
+      tokens.add(NEW_VALUE);
+
+      SMGExplicitValue explicit = smg.getExplicit(SMGKnownSymValue.valueOf(pValue));
+      if (explicit.isUnknown()) {
+        tokens.add(UNKNOWN);
+      } else {
+        tokens.add(explicit.getValue());
+      }
+      if (smg.isPointer(pValue)) {
+        SMGEdgePointsTo pointer = smg.getPointer(pValue);
+        tokens.add(POINTER);
+        tokens.add(pointer.getOffset());
+        tokens.add(getObjectId(pointer.getObject()));
+      } else {
+        tokens.add(NO_POINTER);
+      }
+    }
+
+    private void describeObject(final SMGObject pObject) {
+      tokens.add(OBJECT);
+      tokens.add(objectIds.get(pObject));
+      pObject.accept(this);
+      tokens.add(smg.isObjectValid(pObject));
+
+      List<SMGEdgeHasValue> fields = new ArrayList<>();
+      Iterables.addAll(fields, smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObject)));
+      Collections.sort(fields, FIELD_ORDER);
+      for (SMGEdgeHasValue field : fields) {
+        tokens.add(field.getOffset());
+        // Fields are joined only with fields of an equal type
+        tokens.add(field.getType().getClass().getName());
+        tokens.add(field.getSizeInBytes());
+        describeValue(field.getValue());
+      }
+    }
+
+    /**
+     * Records neq relations between numbered values, ordered by the numbers.
+     */
+    private void describeNeqRelations() {
+      tokens.add(NEQ);
+      for (int id = 0; id < values.size(); id++) {
+        List<Integer> neqIds = new ArrayList<>();
+        for (Integer neq : smg.getNeqsForValue(values.get(id))) {
+          int neqId = valueIds.get(neq, -1);
+          if (neqId > id) {
+            neqIds.add(neqId);
+          }
+        }
+        if (!neqIds.isEmpty()) {
+          Collections.sort(neqIds);
+          tokens.add(id);
+          tokens.addAll(neqIds);
+        }
+      }
+    }
+
+    @Override
+    public void visit(final SMGObject pObject) {
+      tokens.add(pObject.getClass().getName());
+      tokens.add(pObject.getSize());
+    }
+
+    @Override
+    public void visit(final SMGRegion pObject) {
+      tokens.add(REGION);
+      tokens.add(pObject.getSize());
+    }
+
+    @Override
+    public void visit(final SMGSingleLinkedList pObject) {
+      tokens.add(LIST);
+      tokens.add(pObject.getSize());
+      tokens.add(pObject.getLength());
+      tokens.add(pObject.getOffset());
+    }
+
+    @Override
+    public void visit(final SimpleBinaryTree pObject) {
+      tokens.add(TREE);
+      tokens.add(pObject.getSize());
+      tokens.add(pObject.getDepth());
+    }
+  }
+}
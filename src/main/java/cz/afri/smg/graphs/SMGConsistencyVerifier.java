@@ -219,6 +219,32 @@ final class SMGConsistencyVerifier {
     return true;
   }
 
+  /**
+   * Verify that the Has-Value edges are consistent in the SMG. Two Has-Value
+   * edges may only be inconsistent if they lead from the same object at the
+   * same offset, so each edge is only compared to the edges sharing its
+   * offset instead of to all other edges.
+   *
+   * @param pSmg A SMG to verify
+   * @return True, if all Has-Value edges in {@link pSmg} satisfy consistency criteria. False otherwise.
+   */
+  private static boolean verifyHVEdgeConsistency(final SMG pSmg) {
+    for (SMGEdgeHasValue edge : pSmg.getHVEdges()) {
+      if (!pSmg.getObjects().contains(edge.getObject()) || !pSmg.getValues().contains(edge.getValue())) {
+        return false;
+      }
+
+      SMGEdgeHasValueFilter filter = SMGEdgeHasValueFilter.objectFilter(edge.getObject());
+      filter.filterAtOffset(edge.getOffset());
+      for (SMGEdgeHasValue otherEdge : pSmg.getHVEdges(filter)) {
+        if (!edge.isConsistentWith(otherEdge)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   private static boolean verifyObjectConsistency(final SMG pSmg) {
     for (SMGObject obj : pSmg.getObjects()) {
       try {
@@ -261,7 +287,7 @@ final class SMGConsistencyVerifier {
     toReturn = toReturn && verifySMGProperty(
         verifyFieldConsistency(pSmg), "field consistency");
     toReturn = toReturn && verifySMGProperty(
-        verifyEdgeConsistency(pSmg, pSmg.getHVEdges()), "Has Value edge consistency");
+        verifyHVEdgeConsistency(pSmg), "Has Value edge consistency");
     toReturn = toReturn && verifySMGProperty(
         verifyEdgeConsistency(pSmg, pSmg.getPTEdges()), "Points To edge consistency");
     toReturn = toReturn && verifySMGProperty(
@@ -46,6 +46,30 @@ public class SMGEdgeHasValueFilter {
   private Integer offset = null;
   private CType type = null;
 
+  /**
+   * @return The object the filter is restricted to, or null if the filter accepts edges from any object.
+   */
+  final SMGObject getObject() {
+    return object;
+  }
+
+  /**
+   * @return The offset the filter is restricted to, or null if the filter accepts edges at any offset.
+   */
+  final Integer getOffset() {
+    return offset;
+  }
+
+  /**
+   * @return The value the edges are required to have, or null if the filter does not require any specific value.
+   */
+  final Integer getRequiredValue() {
+    if (valueComplement) {
+      return null;
+    }
+    return value;
+  }
+
   public final SMGEdgeHasValueFilter filterByObject(final SMGObject pObject) {
     object = pObject;
     return this;
@@ -22,14 +22,53 @@
 package cz.afri.smg.graphs;
 
 public final class SMGFactory {
+  /**
+   * Ways of copying an SMG in {@link SMGFactory#createWritableCopy(ReadableSMG, CopyMode)}.
+   */
+  public enum CopyMode {
+    /**
+     * All components of the original SMG which are not persistent are copied
+     * immediately.
+     */
+    EAGER,
+
+    /**
+     * Components of the original SMG are shared with the copy until either of
+     * them modifies the component.
+     */
+    COPY_ON_WRITE
+  }
+
   private SMGFactory() { }
+
   public static WritableSMG createWritableSMG() {
     return new CLangSMG();
   }
 
+  /**
+   * Creates a copy of {@link pSMG} in {@link CopyMode#COPY_ON_WRITE} mode.
+   *
+   * @param pSMG SMG to copy
+   * @return The copy
+   */
   public static WritableSMG createWritableCopy(final ReadableSMG pSMG) {
+    return createWritableCopy(pSMG, CopyMode.COPY_ON_WRITE);
+  }
+
+  /**
+   * Creates a copy of {@link pSMG}. In either mode, the copy shares some
+   * components with {@link pSMG}, and {@link pSMG} is marked so that it does
+   * not modify them in place afterwards. Copying is therefore a write to
+   * {@link pSMG}, and it has to be synchronized with other accesses to
+   * {@link pSMG} like any other modification.
+   *
+   * @param pSMG SMG to copy
+   * @param pMode How the components of {@link pSMG} are copied
+   * @return The copy
+   */
+  public static WritableSMG createWritableCopy(final ReadableSMG pSMG, final CopyMode pMode) {
     if (pSMG instanceof CLangSMG) {
-      return new CLangSMG((CLangSMG) pSMG);
+      return new CLangSMG((CLangSMG) pSMG, pMode == CopyMode.COPY_ON_WRITE);
     }
     throw new IllegalArgumentException("createWritableCopy() called on non-CLangSMG");
   }
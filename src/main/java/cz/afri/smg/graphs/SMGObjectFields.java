@@ -0,0 +1,209 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.graphs;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+
+/**
+ * Has-Value edges leading from a single object, ordered by their offset.
+ *
+ * Several edges may start at the same offset (fields of different types), so
+ * each offset maps to a set of edges. The size of the largest field ever added
+ * is remembered, which bounds how far before a given offset an overlapping
+ * field may start.
+ *
+ * The bytes covered by fields having the null value are tracked in a bitset,
+ * which is updated on every addition and removal of such a field.
+ *
+ * Field maps are shared between copies of an SMG. Only the SMG holding the
+ * owner token passed at construction may modify a field map in place; any
+ * other SMG has to copy it first.
+ */
+final class SMGObjectFields implements Iterable<SMGEdgeHasValue> {
+  private final TreeMap<Integer, Set<SMGEdgeHasValue>> fields = new TreeMap<>();
+  private int maxFieldSize = 0;
+  private int size = 0;
+  private final BitSet nullBytes;
+  private final Object owner;
+
+  /**
+   * Constructor.
+   *
+   * @param pOwner Token of the SMG allowed to modify this field map
+   */
+  SMGObjectFields(final Object pOwner) {
+    nullBytes = new BitSet();
+    owner = pOwner;
+  }
+
+  /**
+   * Copy constructor.
+   *
+   * @param pOther Original field map
+   * @param pOwner Token of the SMG allowed to modify the copy
+   */
+  SMGObjectFields(final SMGObjectFields pOther, final Object pOwner) {
+    for (Map.Entry<Integer, Set<SMGEdgeHasValue>> entry : pOther.fields.entrySet()) {
+      fields.put(entry.getKey(), new HashSet<>(entry.getValue()));
+    }
+    maxFieldSize = pOther.maxFieldSize;
+    size = pOther.size;
+    nullBytes = (BitSet) pOther.nullBytes.clone();
+    owner = pOwner;
+  }
+
+  public boolean isOwnedBy(final Object pOwner) {
+    return owner == pOwner;
+  }
+
+  public boolean add(final SMGEdgeHasValue pEdge) {
+    Set<SMGEdgeHasValue> atOffset = fields.get(pEdge.getOffset());
+    if (atOffset == null) {
+      atOffset = new HashSet<>();
+      fields.put(pEdge.getOffset(), atOffset);
+    }
+    if (!atOffset.add(pEdge)) {
+      return false;
+    }
+
+    size++;
+    maxFieldSize = Math.max(maxFieldSize, pEdge.getSizeInBytes());
+    if (pEdge.getValue() == SMG.NULL_ADDRESS) {
+      nullBytes.set(pEdge.getOffset(), pEdge.getOffset() + pEdge.getSizeInBytes());
+    }
+    return true;
+  }
+
+  public boolean remove(final SMGEdgeHasValue pEdge) {
+    Set<SMGEdgeHasValue> atOffset = fields.get(pEdge.getOffset());
+    if (atOffset == null || !atOffset.remove(pEdge)) {
+      return false;
+    }
+
+    if (atOffset.isEmpty()) {
+      fields.remove(pEdge.getOffset());
+    }
+    size--;
+    if (pEdge.getValue() == SMG.NULL_ADDRESS) {
+      unsetNullBytes(pEdge.getOffset(), pEdge.getOffset() + pEdge.getSizeInBytes());
+    }
+    return true;
+  }
+
+  /**
+   * Clears the null bytes in [pStart, pEnd) which are no longer covered by any
+   * remaining null field. Only fields overlapping the range are visited.
+   */
+  private void unsetNullBytes(final int pStart, final int pEnd) {
+    nullBytes.clear(pStart, pEnd);
+    for (SMGEdgeHasValue edge : overlapping(pStart, pEnd)) {
+      if (edge.getValue() == SMG.NULL_ADDRESS) {
+        int start = Math.max(pStart, edge.getOffset());
+        int end = Math.min(pEnd, edge.getOffset() + edge.getSizeInBytes());
+        if (start < end) {
+          nullBytes.set(start, end);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The bitset of bytes covered by null fields. The bitset is owned by
+   * this object and must not be modified by the caller.
+   */
+  public BitSet getNullBytes() {
+    return nullBytes;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param pOffset Offset of the field start
+   * @return Unmodifiable view on edges starting exactly at {@link pOffset}
+   */
+  public Set<SMGEdgeHasValue> atOffset(final int pOffset) {
+    Set<SMGEdgeHasValue> atOffset = fields.get(pOffset);
+    if (atOffset == null) {
+      return Collections.emptySet();
+    }
+    return Collections.unmodifiableSet(atOffset);
+  }
+
+  /**
+   * Obtains edges whose fields overlap the byte range [pStart, pEnd), in the
+   * sense of {@link SMGEdgeHasValue#overlapsWith(int, int)}.
+   *
+   * @param pStart First byte of the range
+   * @param pEnd First byte after the range
+   * @return Edges overlapping the range, ordered by offset
+   */
+  public Iterable<SMGEdgeHasValue> overlapping(final int pStart, final int pEnd) {
+    // A field starting before pStart may only overlap if it is at most maxFieldSize bytes long
+    long lowerBound = (long) pStart - maxFieldSize;
+    long upperBound = Math.max((long) pEnd, (long) pStart + 1);
+
+    NavigableMap<Integer, Set<SMGEdgeHasValue>> candidates =
+        fields.subMap(clamp(lowerBound), false, clamp(upperBound), false);
+
+    return Iterables.filter(Iterables.concat(candidates.values()), new Predicate<SMGEdgeHasValue>() {
+      @Override
+      public boolean apply(final SMGEdgeHasValue pEdge) {
+        return pEdge.overlapsWith(pStart, pEnd);
+      }
+    });
+  }
+
+  private static int clamp(final long pValue) {
+    return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, pValue));
+  }
+
+  /**
+   * @return Offsets at which at least one field starts, in ascending order
+   */
+  public Set<Integer> getOffsets() {
+    return Collections.unmodifiableSet(fields.keySet());
+  }
+
+  @Override
+  public Iterator<SMGEdgeHasValue> iterator() {
+    Collection<Set<SMGEdgeHasValue>> values = fields.values();
+    return Iterators.unmodifiableIterator(Iterables.concat(values).iterator());
+  }
+}
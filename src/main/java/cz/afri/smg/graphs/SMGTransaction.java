@@ -0,0 +1,554 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.graphs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import cz.afri.smg.graphs.SMGValues.SMGExplicitValue;
+import cz.afri.smg.graphs.SMGValues.SMGKnownExpValue;
+import cz.afri.smg.graphs.SMGValues.SMGKnownSymValue;
+import cz.afri.smg.objects.SMGObject;
+import cz.afri.smg.objects.SMGRegion;
+
+/**
+ * A batch of edits of a {@link WritableSMG}, obtained by
+ * {@link WritableSMG#beginTransaction()}. Edits are only queued until
+ * {@link #commit()}, which applies them to the SMG in the order in which they
+ * were queued. The SMG may therefore be read, and its views iterated, while
+ * edits are being queued.
+ *
+ * The commit is atomic: before applying an edit, the commit records how to
+ * undo it, and if an edit fails, the edits applied before it are undone in
+ * reverse order. Recording an edit takes time proportional to the edges it
+ * removes or rewrites, so a commit does not copy the SMG. Consecutive
+ * removals of heap objects are applied together, updating the value index of
+ * Has-Value edges once per value. Leaked heap objects are detected, and the
+ * consistency of the SMG is verified with checks on, once after all edits
+ * are applied, so an object may lose its last reference and regain it within
+ * a single transaction.
+ */
+public final class SMGTransaction {
+  /**
+   * A single queued edit.
+   */
+  private abstract static class Edit {
+    /**
+     * Applies the edit to {@link pSMG}. An edit which throws an exception
+     * does so before modifying the SMG.
+     *
+     * @param pSMG SMG to modify
+     * @return Undo of the edit, recorded before the edit was applied
+     */
+    abstract Undo apply(CLangSMG pSMG);
+  }
+
+  /**
+   * Restores the part of an SMG modified by a single edit, provided that the
+   * edits applied after it were undone already.
+   */
+  private abstract static class Undo {
+    abstract void undo(CLangSMG pSMG);
+  }
+
+  private static final Undo NOTHING_TO_UNDO = new Undo() {
+    @Override
+    void undo(final CLangSMG pSMG) {
+    }
+  };
+
+  private final CLangSMG smg;
+  private List<Edit> edits = new ArrayList<>();
+
+  SMGTransaction(final CLangSMG pSMG) {
+    smg = pSMG;
+  }
+
+  private SMGTransaction queue(final Edit pEdit) {
+    if (edits == null) {
+      throw new IllegalStateException("Transaction already committed");
+    }
+    edits.add(pEdit);
+    return this;
+  }
+
+  /**
+   * Applies the queued edits to the SMG. If an edit throws an exception, the
+   * edits applied before it are undone and the exception is rethrown. The
+   * transaction may not be used afterwards.
+   */
+  public void commit() {
+    if (edits == null) {
+      throw new IllegalStateException("Transaction already committed");
+    }
+    List<Edit> toApply = edits;
+    edits = null;
+
+    List<Undo> undoLog = new ArrayList<>(toApply.size());
+    smg.beginBatch();
+    try {
+      for (Edit edit : toApply) {
+        undoLog.add(edit.apply(smg));
+      }
+    } catch (RuntimeException e) {
+      for (int i = undoLog.size() - 1; i >= 0; i--) {
+        undoLog.get(i).undo(smg);
+      }
+      smg.abortBatch();
+      throw e;
+    }
+    smg.endBatch();
+  }
+
+  /**
+   * @return Number of queued edits
+   */
+  public int size() {
+    if (edits == null) {
+      return 0;
+    }
+    int size = 0;
+    for (Edit edit : edits) {
+      if (edit instanceof RemoveHeapObjects) {
+        size += ((RemoveHeapObjects) edit).objects.size();
+      } else {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Queues {@link WritableSMG#addHeapObject(SMGObject)}.
+   *
+   * @param pObject Object to add
+   * @return This transaction
+   */
+  public SMGTransaction addHeapObject(final SMGObject pObject) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        Undo undo = new ObjectUndo(pSMG, pObject);
+        pSMG.addHeapObject(pObject);
+        return undo;
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#removeHeapObject(SMGObject)}.
+   *
+   * @param pObject Object to remove
+   * @return This transaction
+   */
+  public SMGTransaction removeHeapObject(final SMGObject pObject) {
+    if (edits != null && !edits.isEmpty() && Iterables.getLast(edits) instanceof RemoveHeapObjects) {
+      ((RemoveHeapObjects) Iterables.getLast(edits)).objects.add(pObject);
+      return this;
+    }
+    RemoveHeapObjects removal = new RemoveHeapObjects();
+    removal.objects.add(pObject);
+    return queue(removal);
+  }
+
+  /**
+   * Queues {@link WritableSMG#addValue(Integer)}.
+   *
+   * @param pValue Value to add
+   * @return This transaction
+   */
+  public SMGTransaction addValue(final Integer pValue) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        Undo undo = new ValueUndo(pSMG, ImmutableList.of(pValue), false);
+        pSMG.addValue(pValue);
+        return undo;
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#removeValue(Integer)}.
+   *
+   * @param pValue Value to remove
+   * @return This transaction
+   */
+  public SMGTransaction removeValue(final Integer pValue) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        Undo undo = new ValueUndo(pSMG, ImmutableList.of(pValue), false);
+        pSMG.removeValue(pValue);
+        return undo;
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#addPointsToEdge(SMGEdgePointsTo)}.
+   *
+   * @param pEdge Edge to add
+   * @return This transaction
+   */
+  public SMGTransaction addPointsToEdge(final SMGEdgePointsTo pEdge) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        Undo undo = new PointerUndo(pSMG, pEdge.getValue());
+        pSMG.addPointsToEdge(pEdge);
+        return undo;
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#removePointsToEdge(Integer)}.
+   *
+   * @param pValue Value from which the removed edge leads
+   * @return This transaction
+   */
+  public SMGTransaction removePointsToEdge(final Integer pValue) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        Undo undo = new PointerUndo(pSMG, pValue);
+        pSMG.removePointsToEdge(pValue);
+        return undo;
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#addHasValueEdge(SMGEdgeHasValue)}.
+   *
+   * @param pEdge Edge to add
+   * @return This transaction
+   */
+  public SMGTransaction addHasValueEdge(final SMGEdgeHasValue pEdge) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        if (pSMG.getHVEdges().contains(pEdge)) {
+          return NOTHING_TO_UNDO;
+        }
+        pSMG.addHasValueEdge(pEdge);
+        return new Undo() {
+          @Override
+          void undo(final CLangSMG pUndoneSMG) {
+            pUndoneSMG.removeHasValueEdge(pEdge);
+          }
+        };
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#removeHasValueEdge(SMGEdgeHasValue)}.
+   *
+   * @param pEdge Edge to remove
+   * @return This transaction
+   */
+  public SMGTransaction removeHasValueEdge(final SMGEdgeHasValue pEdge) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        if (!pSMG.getHVEdges().contains(pEdge)) {
+          return NOTHING_TO_UNDO;
+        }
+        pSMG.removeHasValueEdge(pEdge);
+        return new Undo() {
+          @Override
+          void undo(final CLangSMG pUndoneSMG) {
+            pUndoneSMG.addHasValueEdge(pEdge);
+          }
+        };
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#setValidity(SMGRegion, boolean)}.
+   *
+   * @param pRegion Region for which to set validity
+   * @param pValidity Target validity
+   * @return This transaction
+   */
+  public SMGTransaction setValidity(final SMGRegion pRegion, final boolean pValidity) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        // Throws for an object not in the SMG
+        final boolean oldValidity = pSMG.isObjectValid(pRegion);
+        pSMG.setValidity(pRegion, pValidity);
+        return new Undo() {
+          @Override
+          void undo(final CLangSMG pUndoneSMG) {
+            pUndoneSMG.setValidity(pRegion, oldValidity);
+          }
+        };
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#addNeqRelation(Integer, Integer)}.
+   *
+   * @param pOp1 First value
+   * @param pOp2 Second value
+   * @return This transaction
+   */
+  public SMGTransaction addNeqRelation(final Integer pOp1, final Integer pOp2) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        if (pOp1.equals(pOp2) || pSMG.haveNeqRelation(pOp1, pOp2)) {
+          return NOTHING_TO_UNDO;
+        }
+        pSMG.addNeqRelation(pOp1, pOp2);
+        return new Undo() {
+          @Override
+          void undo(final CLangSMG pUndoneSMG) {
+            pUndoneSMG.removeNeqRelation(pOp1, pOp2);
+          }
+        };
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#mergeValues(int, int)}.
+   *
+   * @param pOp1 First value
+   * @param pOp2 Second value
+   * @return This transaction
+   */
+  public SMGTransaction mergeValues(final int pOp1, final int pOp2) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        if (pOp1 == pOp2) {
+          return NOTHING_TO_UNDO;
+        }
+        Undo undo = new ValueUndo(pSMG, ImmutableList.of(pOp1, pOp2), true);
+        pSMG.mergeValues(pOp1, pOp2);
+        return undo;
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#putExplicit(SMGKnownSymValue, SMGKnownExpValue)}.
+   *
+   * @param pKey Symbolic value
+   * @param pValue Explicit value
+   * @return This transaction
+   */
+  public SMGTransaction putExplicit(final SMGKnownSymValue pKey, final SMGKnownExpValue pValue) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        Undo undo = new ExplicitUndo(pSMG, pKey);
+        pSMG.putExplicit(pKey, pValue);
+        return undo;
+      }
+    });
+  }
+
+  /**
+   * Queues {@link WritableSMG#clearExplicit(SMGKnownSymValue)}.
+   *
+   * @param pKey Symbolic value for which the explicit value will be cleared
+   * @return This transaction
+   */
+  public SMGTransaction clearExplicit(final SMGKnownSymValue pKey) {
+    return queue(new Edit() {
+      @Override
+      Undo apply(final CLangSMG pSMG) {
+        Undo undo = new ExplicitUndo(pSMG, pKey);
+        pSMG.clearExplicit(pKey);
+        return undo;
+      }
+    });
+  }
+
+  /**
+   * Consecutive queued removals of heap objects, applied together.
+   */
+  private static final class RemoveHeapObjects extends Edit {
+    private final List<SMGObject> objects = new ArrayList<>();
+
+    @Override
+    Undo apply(final CLangSMG pSMG) {
+      final List<ObjectUndo> undos = new ArrayList<>(objects.size());
+      for (SMGObject object : objects) {
+        undos.add(new ObjectUndo(pSMG, object));
+      }
+      pSMG.removeHeapObjects(objects);
+      return new Undo() {
+        @Override
+        void undo(final CLangSMG pUndoneSMG) {
+          for (int i = undos.size() - 1; i >= 0; i--) {
+            undos.get(i).undo(pUndoneSMG);
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * Restores an object: whether it is in the SMG and a heap object, its
+   * validity, its Has-Value edges and the Points-To edges leading to it.
+   */
+  private static final class ObjectUndo extends Undo {
+    private final SMGObject object;
+    private final boolean wasObject;
+    private final boolean wasHeapObject;
+    private final boolean validity;
+    private final List<SMGEdgeHasValue> hvEdges;
+    private final List<SMGEdgePointsTo> ptEdges;
+
+    ObjectUndo(final CLangSMG pSMG, final SMGObject pObject) {
+      object = pObject;
+      wasObject = pSMG.getObjects().contains(pObject);
+      wasHeapObject = pSMG.isHeapObject(pObject);
+      validity = wasObject && pSMG.isObjectValid(pObject);
+      hvEdges = ImmutableList.copyOf(pSMG.getHVEdgesOf(pObject));
+      ptEdges = ImmutableList.copyOf(pSMG.getPTEdgesToObject(pObject));
+    }
+
+    @Override
+    void undo(final CLangSMG pSMG) {
+      pSMG.removeObjectAndEdges(object);
+      pSMG.setHeapObject(object, wasHeapObject);
+      if (wasObject) {
+        pSMG.addObject(object, validity);
+      }
+      for (SMGEdgePointsTo edge : ptEdges) {
+        pSMG.addPointsToEdge(edge);
+      }
+      for (SMGEdgeHasValue edge : hvEdges) {
+        pSMG.addHasValueEdge(edge);
+      }
+    }
+  }
+
+  /**
+   * Restores values: whether they are in the SMG, their neq relations and,
+   * optionally, the Has-Value edges holding them.
+   */
+  private static final class ValueUndo extends Undo {
+    private final List<Integer> values;
+    private final boolean[] wereValues;
+    private final List<List<Integer>> neqs = new ArrayList<>();
+    private final List<SMGEdgeHasValue> hvEdges;
+
+    ValueUndo(final CLangSMG pSMG, final List<Integer> pValues, final boolean pWithEdges) {
+      values = pValues;
+      wereValues = new boolean[pValues.size()];
+      ImmutableList.Builder<SMGEdgeHasValue> edges = ImmutableList.builder();
+      for (int i = 0; i < pValues.size(); i++) {
+        Integer value = pValues.get(i);
+        wereValues[i] = pSMG.getValues().contains(value);
+        neqs.add(ImmutableList.copyOf(pSMG.getNeqsForValue(value)));
+        if (pWithEdges) {
+          edges.addAll(pSMG.getHVEdges(new SMGEdgeHasValueFilter().filterHavingValue(value)));
+        }
+      }
+      hvEdges = pWithEdges ? edges.build() : null;
+    }
+
+    @Override
+    void undo(final CLangSMG pSMG) {
+      if (hvEdges != null) {
+        for (Integer value : values) {
+          List<SMGEdgeHasValue> current =
+              ImmutableList.copyOf(pSMG.getHVEdges(new SMGEdgeHasValueFilter().filterHavingValue(value)));
+          for (SMGEdgeHasValue edge : current) {
+            pSMG.removeHasValueEdge(edge);
+          }
+        }
+      }
+      for (int i = 0; i < values.size(); i++) {
+        Integer value = values.get(i);
+        pSMG.removeValue(value);
+        if (wereValues[i]) {
+          pSMG.addValue(value);
+        }
+        for (Integer neq : neqs.get(i)) {
+          pSMG.addNeqRelation(value, neq);
+        }
+      }
+      if (hvEdges != null) {
+        for (SMGEdgeHasValue edge : hvEdges) {
+          pSMG.addHasValueEdge(edge);
+        }
+      }
+    }
+  }
+
+  /**
+   * Restores the Points-To edge leading from a value.
+   */
+  private static final class PointerUndo extends Undo {
+    private final Integer value;
+    private final SMGEdgePointsTo edge;
+
+    PointerUndo(final CLangSMG pSMG, final Integer pValue) {
+      value = pValue;
+      edge = pSMG.isPointer(pValue) ? pSMG.getPointer(pValue) : null;
+    }
+
+    @Override
+    void undo(final CLangSMG pSMG) {
+      pSMG.removePointsToEdge(value);
+      if (edge != null) {
+        pSMG.addPointsToEdge(edge);
+      }
+    }
+  }
+
+  /**
+   * Restores the explicit value of a symbolic value.
+   */
+  private static final class ExplicitUndo extends Undo {
+    private final SMGKnownSymValue key;
+    private final SMGExplicitValue explicit;
+
+    ExplicitUndo(final CLangSMG pSMG, final SMGKnownSymValue pKey) {
+      key = pKey;
+      explicit = pSMG.getExplicit(pKey);
+    }
+
+    @Override
+    void undo(final CLangSMG pSMG) {
+      if (explicit.isUnknown()) {
+        pSMG.clearExplicit(key);
+      } else {
+        pSMG.putExplicit(key, (SMGKnownExpValue) explicit);
+      }
+    }
+  }
+}
@@ -21,14 +21,62 @@
  */
 package cz.afri.smg.graphs;
 
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Allocates fresh symbolic values, unique across all threads.
+ *
+ * Each thread takes blocks of consecutive values from a global counter and
+ * hands them out locally, so threads only contend for the counter once per
+ * block. Within a single thread, values are allocated in increasing order.
+ */
 public final class SMGValueFactory {
-  private static int counter = 0;
+  private static final int BLOCK_SIZE = 1024;
+
+  /**
+   * The last value reserved by any thread.
+   */
+  private static final AtomicInteger LAST_RESERVED = new AtomicInteger(0);
+
+  /**
+   * Incremented by {@link #reset()}, invalidating blocks reserved before.
+   */
+  private static volatile int generation = 0;
+
+  private static final class Block {
+    private int next = 0;
+    private int end = 0;
+    private int generation = -1;
+  }
+
+  private static final ThreadLocal<Block> BLOCKS = new ThreadLocal<Block>() {
+    @Override
+    protected Block initialValue() {
+      return new Block();
+    }
+  };
 
   public static Integer getNewValue() {
-    counter++;
-    return Integer.valueOf(counter);
+    Block block = BLOCKS.get();
+    int currentGeneration = generation;
+    if (block.next == block.end || block.generation != currentGeneration) {
+      block.next = LAST_RESERVED.getAndAdd(BLOCK_SIZE) + 1;
+      block.end = block.next + BLOCK_SIZE;
+      block.generation = currentGeneration;
+    }
+    return Integer.valueOf(block.next++);
+  }
+
+  /**
+   * Restarts allocation from the first value, so that tests do not depend on
+   * values allocated by other tests. Values allocated before the call are
+   * allocated again, so it must not be called while any SMG is in use, or
+   * concurrently with {@link #getNewValue()}.
+   */
+  public static void reset() {
+    LAST_RESERVED.set(0);
+    generation++;
   }
 
   private SMGValueFactory() { };
-}
\ No newline at end of file
+}
@@ -200,4 +200,11 @@ public interface WritableSMG extends ReadableSMG {
    *          explicit value
    */
   void putExplicit(SMGKnownSymValue pKey, SMGKnownExpValue pValue);
+
+  /**
+   * Starts a transaction on the SMG. Edits queued in the transaction are applied to the SMG when it is committed.
+   *
+   * @return a new transaction on this SMG
+   */
+  SMGTransaction beginTransaction();
 }
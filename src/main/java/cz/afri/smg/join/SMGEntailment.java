@@ -0,0 +1,59 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.join;
+
+import cz.afri.smg.graphs.ReadableSMG;
+
+/**
+ * Checks whether one SMG entails another, that is, whether every concrete
+ * state described by the second SMG is described by the first one.
+ *
+ * The check runs the mapping of {@link SMGJoin}, but it does not build the
+ * joint SMG, and it stops at the first incomparable pair of nodes.
+ */
+public final class SMGEntailment {
+  private final SMGJoinStatus status;
+
+  public SMGEntailment(final ReadableSMG pSMG1, final ReadableSMG pSMG2) {
+    SMGJoin join = new SMGJoin(pSMG1, pSMG2, true);
+    if (join.isDefined()) {
+      status = join.getStatus();
+    } else {
+      status = SMGJoinStatus.INCOMPARABLE;
+    }
+  }
+
+  /**
+   * @return Status of the join of the SMGs; {@link SMGJoinStatus#INCOMPARABLE}
+   * if the SMGs are incomparable or cannot be joined
+   */
+  public SMGJoinStatus getStatus() {
+    return status;
+  }
+
+  /**
+   * @return True if the second SMG is entailed by the first one
+   */
+  public boolean isEntailed() {
+    return status == SMGJoinStatus.EQUAL || status == SMGJoinStatus.LEFT_ENTAIL;
+  }
+}
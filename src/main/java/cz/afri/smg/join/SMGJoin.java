@@ -21,15 +21,17 @@
  */
 package cz.afri.smg.join;
 
-import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
+import cz.afri.smg.collections.IntIntHashMap;
 import cz.afri.smg.graphs.CLangStackFrame;
 import cz.afri.smg.graphs.ReadableSMG;
 import cz.afri.smg.graphs.SMGFactory;
@@ -45,38 +47,74 @@ public final class SMGJoin {
 
   private boolean defined = false;
   private SMGJoinStatus status = SMGJoinStatus.EQUAL;
-  private final WritableSMG smg;
+  private WritableSMG smg = null;
 
   public SMGJoin(final ReadableSMG pSMG1, final ReadableSMG pSMG2) {
-    ReadableSMG opSMG1 = SMGFactory.createWritableCopy(pSMG1);
-    ReadableSMG opSMG2 = SMGFactory.createWritableCopy(pSMG2);
-    smg = SMGFactory.createWritableSMG();
+    this(pSMG1, pSMG2, false, null);
+  }
+
+  /**
+   * Joins the sub-SMGs of variables in parallel on {@link pPool}. The
+   * variables are grouped by the objects and values reachable from them,
+   * and the groups reaching disjoint parts of the SMGs are joined as
+   * separate tasks. If all variables fall into a single group, the join is
+   * done sequentially. The result is the same as with
+   * {@link #SMGJoin(ReadableSMG, ReadableSMG)}, up to the choice of fresh
+   * values and objects.
+   *
+   * @param pSMG1 First SMG to join
+   * @param pSMG2 Second SMG to join
+   * @param pPool Pool to run the tasks on
+   */
+  public SMGJoin(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final ForkJoinPool pPool) {
+    this(pSMG1, pSMG2, false, pPool);
+  }
+
+  /**
+   * In check-only mode, only the status of the join is computed: the joint
+   * SMG is not built, and the join stops as undefined as soon as the status
+   * becomes {@link SMGJoinStatus#INCOMPARABLE}. Each object and value of the
+   * joint SMG is then represented in the mappings by a placeholder, the
+   * object or value of the first SMG it is created for, and the addresses of
+   * the joint SMG are kept by the mapping of the first SMG.
+   *
+   * @param pSMG1 First SMG to join
+   * @param pSMG2 Second SMG to join
+   * @param pCheckOnly True for the check-only mode
+   */
+  SMGJoin(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final boolean pCheckOnly) {
+    this(pSMG1, pSMG2, pCheckOnly, null);
+  }
+
+  private SMGJoin(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final boolean pCheckOnly,
+                  final ForkJoinPool pPool) {
+    if (!haveMatchingVariables(pSMG1, pSMG2)) {
+      return;
+    }
+
+    if (!pCheckOnly) {
+      smg = SMGFactory.createWritableSMG();
+    }
 
     SMGNodeMapping mapping1 = new SMGNodeMapping();
     SMGNodeMapping mapping2 = new SMGNodeMapping();
+    if (pCheckOnly) {
+      mapping1.addAddress(pSMG1.getNullObject(), 0, pSMG1.getNullValue());
+    }
+
+    Map<String, SMGRegion> globalsInSmg1 = pSMG1.getGlobalObjects();
+    Deque<CLangStackFrame> stackInSmg1 = pSMG1.getStackFrames();
+    Map<String, SMGRegion> globalsInSmg2 = pSMG2.getGlobalObjects();
+    Deque<CLangStackFrame> stackInSmg2 = pSMG2.getStackFrames();
 
-    Map<String, SMGRegion> globalsInSmg1 = opSMG1.getGlobalObjects();
-    ArrayDeque<CLangStackFrame> stackInSmg1 = opSMG1.getStackFrames();
-    Map<String, SMGRegion> globalsInSmg2 = opSMG2.getGlobalObjects();
-    ArrayDeque<CLangStackFrame> stackInSmg2 = opSMG2.getStackFrames();
-
-    Set<String> globalVars = new HashSet<>();
-    globalVars.addAll(globalsInSmg1.keySet());
-    globalVars.addAll(globalsInSmg2.keySet());
-
-    for (String globalVar : globalVars) {
-      SMGRegion globalInSMG1 = globalsInSmg1.get(globalVar);
-      SMGRegion globalInSMG2 = globalsInSmg2.get(globalVar);
-      if (globalInSMG1 == null || globalInSMG2 == null) {
-        // This weird situation happens with function static variables, which are created
-        // as globals when a declaration is met. So if one path goes through function and other
-        // does not, then one SMG will have that global and the other one won't.
-        // TODO: We could actually just add that object, as that should not influence the result of
-        // the join. For now, we will treat this situation as unjoinable.
-        return;
+    for (Entry<String, SMGRegion> entry : globalsInSmg1.entrySet()) {
+      SMGRegion globalInSMG1 = entry.getValue();
+      SMGRegion globalInSMG2 = globalsInSmg2.get(entry.getKey());
+      SMGRegion finalObject = globalInSMG1;
+      if (!pCheckOnly) {
+        finalObject = smg.addGlobalVariable(CType.createTypeWithLength(globalInSMG1.getSize()),
+                                            globalInSMG1.getLabel());
       }
-      SMGRegion finalObject = smg.addGlobalVariable(CType.createTypeWithLength(globalInSMG1.getSize()),
-                                                    globalInSMG1.getLabel());
       mapping1.map(globalInSMG1, finalObject);
       mapping2.map(globalInSMG2, finalObject);
     }
@@ -88,36 +126,29 @@ public final class SMGJoin {
       CLangStackFrame frameInSMG1 = smg1stackIterator.next();
       CLangStackFrame frameInSMG2 = smg2stackIterator.next();
 
-      smg.addStackFrame(frameInSMG1.getFunctionDeclaration());
-
-      Set<String> localVars = new HashSet<>();
-      localVars.addAll(frameInSMG1.getVariables().keySet());
-      localVars.addAll(frameInSMG2.getVariables().keySet());
+      if (!pCheckOnly) {
+        smg.addStackFrame(frameInSMG1.getFunctionDeclaration());
+      }
 
-      for (String localVar : localVars) {
-        if ((!frameInSMG1.containsVariable(localVar)) || (!frameInSMG2.containsVariable(localVar))) {
-          return;
-        }
+      for (String localVar : frameInSMG1.getVariables().keySet()) {
         SMGRegion localInSMG1 = frameInSMG1.getVariable(localVar);
         SMGRegion localInSMG2 = frameInSMG2.getVariable(localVar);
-        SMGRegion finalObject = smg.addLocalVariable(CType.createTypeWithLength(localInSMG1.getSize()),
-                                                     localInSMG1.getLabel());
+        SMGRegion finalObject = localInSMG1;
+        if (!pCheckOnly) {
+          finalObject = smg.addLocalVariable(CType.createTypeWithLength(localInSMG1.getSize()),
+                                             localInSMG1.getLabel());
+        }
 
         mapping1.map(localInSMG1, finalObject);
         mapping2.map(localInSMG2, finalObject);
       }
     }
 
+    List<SMGJoinRoots.Root> roots = new ArrayList<>();
     for (Entry<String, SMGRegion> entry : globalsInSmg1.entrySet()) {
       SMGObject globalInSMG1 = entry.getValue();
       SMGObject globalInSMG2 = globalsInSmg2.get(entry.getKey());
-      SMGObject destinationGlobal = mapping1.get(globalInSMG1);
-      SMGJoinSubSMGs jss = new SMGJoinSubSMGs(status, opSMG1, opSMG2, smg, mapping1, mapping2, globalInSMG1,
-                                              globalInSMG2, destinationGlobal);
-      if (!jss.isDefined()) {
-        return;
-      }
-      status = jss.getStatus();
+      roots.add(new SMGJoinRoots.Root(globalInSMG1, globalInSMG2, mapping1.get(globalInSMG1)));
     }
 
     smg1stackIterator = stackInSmg1.iterator();
@@ -130,21 +161,66 @@ public final class SMGJoin {
       for (String localVar : frameInSMG1.getVariables().keySet()) {
         SMGObject localInSMG1 = frameInSMG1.getVariable(localVar);
         SMGObject localInSMG2 = frameInSMG2.getVariable(localVar);
-        SMGObject destinationLocal = mapping1.get(localInSMG1);
-        SMGJoinSubSMGs jss = new SMGJoinSubSMGs(status, opSMG1, opSMG2, smg, mapping1, mapping2, localInSMG1,
-                                                localInSMG2, destinationLocal);
-        if (!jss.isDefined()) {
-          return;
-        }
-        status = jss.getStatus();
+        roots.add(new SMGJoinRoots.Root(localInSMG1, localInSMG2, mapping1.get(localInSMG1)));
       }
     }
 
+    List<List<SMGJoinRoots.Root>> partitions = null;
+    if (pPool != null) {
+      partitions = SMGJoinRoots.partition(pSMG1, pSMG2, roots);
+    }
 
+    SMGJoinStatus joinStatus;
+    if (partitions != null && partitions.size() > 1) {
+      joinStatus = SMGJoinRoots.joinInParallel(pPool, pSMG1, pSMG2, smg, mapping1, mapping2, partitions,
+                                               pCheckOnly);
+    } else {
+      joinStatus = SMGJoinRoots.join(status, pSMG1, pSMG2, smg, mapping1, mapping2, roots, pCheckOnly);
+    }
 
+    if (joinStatus == null) {
+      return;
+    }
+    status = joinStatus;
     defined = true;
   }
 
+  /**
+   * Cheap necessary condition for the join of two SMGs to be defined, which
+   * allocates no graph structures: both SMGs need to have the same global
+   * variables, and the frames at the same depths from the bottom of their
+   * stacks need to have the same local variables.
+   *
+   * Different sets of global variables happen with function static
+   * variables, which are created as globals when a declaration is met. So if
+   * one path goes through function and other does not, then one SMG will
+   * have that global and the other one won't.
+   * TODO: We could actually just add that object, as that should not
+   * influence the result of the join. For now, we will treat this situation
+   * as unjoinable.
+   *
+   * @param pSMG1 First SMG to join
+   * @param pSMG2 Second SMG to join
+   * @return False if the join of the SMGs is undefined, true if it may be
+   * defined
+   */
+  public static boolean haveMatchingVariables(final ReadableSMG pSMG1, final ReadableSMG pSMG2) {
+    if (!pSMG1.getGlobalObjects().keySet().equals(pSMG2.getGlobalObjects().keySet())) {
+      return false;
+    }
+
+    Iterator<CLangStackFrame> smg1stackIterator = pSMG1.getStackFrames().descendingIterator();
+    Iterator<CLangStackFrame> smg2stackIterator = pSMG2.getStackFrames().descendingIterator();
+    while (smg1stackIterator.hasNext() && smg2stackIterator.hasNext()) {
+      Map<String, SMGRegion> localsInSMG1 = smg1stackIterator.next().getVariables();
+      Map<String, SMGRegion> localsInSMG2 = smg2stackIterator.next().getVariables();
+      if (!localsInSMG1.keySet().equals(localsInSMG2.keySet())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public boolean isDefined() {
     return defined;
   }
@@ -153,14 +229,44 @@ public final class SMGJoin {
     return status;
   }
 
+  /**
+   * @return The joint SMG. If the join is undefined or done in check-only
+   * mode, the SMG may be partial or empty.
+   */
   public ReadableSMG getJointSMG() {
+    if (smg == null) {
+      smg = SMGFactory.createWritableSMG();
+    }
     return smg;
   }
 }
 
+/**
+ * Mapping of objects and values of an SMG to those of the joint SMG. Besides
+ * the mapping itself, it keeps the number of keys mapped to each object and
+ * value, so that it can tell in constant time whether an object or value is
+ * mapped to. Values are kept as primitive ints.
+ */
 class SMGNodeMapping {
   private final Map<SMGObject, SMGObject> objectMap = new HashMap<>();
-  private final Map<Integer, Integer> valueMap = new HashMap<>();
+  private final IntIntHashMap valueMap;
+
+  /**
+   * Number of keys of {@link #objectMap} mapped to each object.
+   */
+  private final Map<SMGObject, Integer> objectKeyCounts = new HashMap<>();
+
+  /**
+   * Number of keys of {@link #valueMap} mapped to each value.
+   */
+  private final IntIntHashMap valueKeyCounts;
+
+  /**
+   * Offsets and addresses of the joint SMG by target object, recorded by
+   * {@link #addAddress(SMGObject, int, int)}. In check-only mode, there is no
+   * joint SMG to look the addresses up in.
+   */
+  private final Map<SMGObject, IntIntHashMap> addresses = new HashMap<>();
 
   @Override
   public int hashCode() {
@@ -177,15 +283,43 @@ class SMGNodeMapping {
     return Objects.equals(objectMap, other.objectMap) && Objects.equals(valueMap, other.valueMap);
   }
 
-  public SMGNodeMapping() { }
+  /**
+   * Returned by {@link IntIntHashMap#get(int, int)} for unmapped values. It
+   * may be a mapped value too, so the mapping has to be checked when it is
+   * returned.
+   */
+  private static final int UNMAPPED = Integer.MIN_VALUE;
+
+  public SMGNodeMapping() {
+    valueMap = new IntIntHashMap();
+    valueKeyCounts = new IntIntHashMap();
+  }
 
   public SMGNodeMapping(final SMGNodeMapping origin) {
     objectMap.putAll(origin.objectMap);
-    valueMap.putAll(origin.valueMap);
+    objectKeyCounts.putAll(origin.objectKeyCounts);
+    valueMap = new IntIntHashMap(origin.valueMap);
+    valueKeyCounts = new IntIntHashMap(origin.valueKeyCounts);
+    for (Entry<SMGObject, IntIntHashMap> entry : origin.addresses.entrySet()) {
+      addresses.put(entry.getKey(), new IntIntHashMap(entry.getValue()));
+    }
   }
 
   public Integer get(final Integer i) {
-    return valueMap.get(i);
+    int value = valueMap.get(i, UNMAPPED);
+    if (value == UNMAPPED && !valueMap.containsKey(i)) {
+      return null;
+    }
+    return value;
+  }
+
+  /**
+   * @param pKey Value to look for
+   * @param pDefault Value returned if {@link pKey} is not mapped
+   * @return Value {@link pKey} is mapped to, or {@link pDefault}
+   */
+  public int get(final int pKey, final int pDefault) {
+    return valueMap.get(pKey, pDefault);
   }
 
   public SMGObject get(final SMGObject o) {
@@ -193,14 +327,34 @@ class SMGNodeMapping {
   }
 
   public void map(final SMGObject key, final SMGObject value) {
-    objectMap.put(key, value);
+    SMGObject previous = objectMap.put(key, value);
+    if (previous != null) {
+      Integer count = objectKeyCounts.get(previous);
+      if (count == 1) {
+        objectKeyCounts.remove(previous);
+      } else {
+        objectKeyCounts.put(previous, count - 1);
+      }
+    }
+    Integer count = objectKeyCounts.get(value);
+    objectKeyCounts.put(value, count == null ? 1 : count + 1);
   }
 
-  public void map(final Integer key, final Integer value) {
+  public void map(final int key, final int value) {
+    if (valueMap.containsKey(key)) {
+      int previous = valueMap.get(key, UNMAPPED);
+      int count = valueKeyCounts.get(previous, 0);
+      if (count == 1) {
+        valueKeyCounts.remove(previous);
+      } else {
+        valueKeyCounts.put(previous, count - 1);
+      }
+    }
     valueMap.put(key, value);
+    valueKeyCounts.put(value, valueKeyCounts.get(value, 0) + 1);
   }
 
-  public boolean containsKey(final Integer key) {
+  public boolean containsKey(final int key) {
     return valueMap.containsKey(key);
   }
 
@@ -208,7 +362,42 @@ class SMGNodeMapping {
     return objectMap.containsKey(key);
   }
 
+  public boolean containsValue(final int value) {
+    return valueKeyCounts.containsKey(value);
+  }
+
   public boolean containsValue(final SMGObject value) {
-    return objectMap.containsValue(value);
+    return objectKeyCounts.containsKey(value);
+  }
+
+  /**
+   * Records {@link pAddress} as the address of {@link pTarget} at
+   * {@link pOffset} in the joint SMG.
+   *
+   * @param pTarget Object of the joint SMG
+   * @param pOffset Offset in the object
+   * @param pAddress Value of the joint SMG
+   */
+  public void addAddress(final SMGObject pTarget, final int pOffset, final int pAddress) {
+    IntIntHashMap targetAddresses = addresses.get(pTarget);
+    if (targetAddresses == null) {
+      targetAddresses = new IntIntHashMap();
+      addresses.put(pTarget, targetAddresses);
+    }
+    targetAddresses.put(pOffset, pAddress);
+  }
+
+  /**
+   * @param pTarget Object of the joint SMG
+   * @param pOffset Offset in the object
+   * @return Address of {@link pTarget} at {@link pOffset} recorded by
+   * {@link #addAddress(SMGObject, int, int)}, or null if there is none
+   */
+  public Integer getAddress(final SMGObject pTarget, final int pOffset) {
+    IntIntHashMap targetAddresses = addresses.get(pTarget);
+    if (targetAddresses == null || !targetAddresses.containsKey(pOffset)) {
+      return null;
+    }
+    return targetAddresses.get(pOffset, UNMAPPED);
   }
 }
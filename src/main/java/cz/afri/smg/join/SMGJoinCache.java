@@ -0,0 +1,173 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.join;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import cz.afri.smg.graphs.ReadableSMG;
+import cz.afri.smg.graphs.SMGCanonicalForm;
+
+/**
+ * A bounded cache of {@link SMGJoin} results, keyed by the canonical forms of
+ * the joined SMGs. Joining a pair of SMGs isomorphic to a pair joined before
+ * returns the earlier result without joining the SMGs again. When the cache
+ * is full, the least recently used result is evicted.
+ *
+ * Only whether the join is defined and its status are cached: the joint SMG
+ * of a join is in terms of the objects and values of the joined pair, so it
+ * is not a valid result for an isomorphic pair. The cache is not thread-safe.
+ */
+public final class SMGJoinCache {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.75f;
+
+  private final int maxSize;
+  private final Map<Key, Result> results;
+
+  private long hits = 0;
+  private long misses = 0;
+
+  /**
+   * @param pMaxSize Maximal number of cached results
+   */
+  public SMGJoinCache(final int pMaxSize) {
+    if (pMaxSize <= 0) {
+      throw new IllegalArgumentException("Cache size has to be positive: " + pMaxSize);
+    }
+    maxSize = pMaxSize;
+    results = new LinkedHashMap<Key, Result>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Key, Result> pEldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Joins {@link pSMG1} with {@link pSMG2}, or returns a cached result of
+   * joining an isomorphic pair of SMGs. The canonical forms are remembered by
+   * the SMGs until they are modified, so repeating the lookup for the same
+   * unmodified SMGs does not traverse them again.
+   *
+   * @param pSMG1 First SMG to join
+   * @param pSMG2 Second SMG to join
+   * @return Result of the join
+   */
+  public Result join(final ReadableSMG pSMG1, final ReadableSMG pSMG2) {
+    Key key = new Key(SMGCanonicalForm.of(pSMG1), SMGCanonicalForm.of(pSMG2));
+    Result result = results.get(key);
+    if (result != null) {
+      hits++;
+      return result;
+    }
+    misses++;
+    SMGJoin join = new SMGJoin(pSMG1, pSMG2);
+    result = new Result(join.isDefined(), join.getStatus());
+    results.put(key, result);
+    return result;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public int size() {
+    return results.size();
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Removes all cached results. The hit and miss counters are kept.
+   */
+  public void clear() {
+    results.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "SMGJoinCache [size=" + results.size() + "/" + maxSize + ", hits=" + hits + ", misses=" + misses + "]";
+  }
+
+  /**
+   * Result of a join without the joint SMG.
+   */
+  public static final class Result {
+    private final boolean defined;
+    private final SMGJoinStatus status;
+
+    private Result(final boolean pDefined, final SMGJoinStatus pStatus) {
+      defined = pDefined;
+      status = pStatus;
+    }
+
+    public boolean isDefined() {
+      return defined;
+    }
+
+    public SMGJoinStatus getStatus() {
+      return status;
+    }
+
+    @Override
+    public String toString() {
+      return "Result [defined=" + defined + ", status=" + status + "]";
+    }
+  }
+
+  /**
+   * An ordered pair of canonical forms.
+   */
+  private static final class Key {
+    private final SMGCanonicalForm form1;
+    private final SMGCanonicalForm form2;
+
+    private Key(final SMGCanonicalForm pForm1, final SMGCanonicalForm pForm2) {
+      form1 = pForm1;
+      form2 = pForm2;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(form1, form2);
+    }
+
+    @Override
+    public boolean equals(final Object pOther) {
+      if (!(pOther instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) pOther;
+      return form1.equals(other.form1) && form2.equals(other.form2);
+    }
+  }
+}
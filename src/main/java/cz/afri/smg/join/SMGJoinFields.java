@@ -32,14 +32,19 @@ import com.google.common.collect.Sets;
 import cz.afri.smg.graphs.ReadableSMG;
 import cz.afri.smg.graphs.SMGEdgeHasValue;
 import cz.afri.smg.graphs.SMGEdgeHasValueFilter;
-import cz.afri.smg.graphs.SMGFactory;
 import cz.afri.smg.graphs.SMGValueFactory;
-import cz.afri.smg.graphs.WritableSMG;
 import cz.afri.smg.objects.SMGObject;
+import cz.afri.smg.types.CType;
 
+/**
+ * Joins the fields of two objects. The result are the field sets which the
+ * objects would have after the join, computed from the fields of the two
+ * objects alone; the SMGs themselves are not modified or copied. New fields
+ * created by the join have fresh values, which are not present in the SMGs.
+ */
 class SMGJoinFields {
-    private final ReadableSMG finalSMG1;
-    private final ReadableSMG finalSMG2;
+    private final Set<SMGEdgeHasValue> fields1;
+    private final Set<SMGEdgeHasValue> fields2;
     private SMGJoinStatus status = SMGJoinStatus.EQUAL;
 
     public SMGJoinFields(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final SMGObject pObj1,
@@ -54,52 +59,53 @@ class SMGJoinFields {
         Set<SMGEdgeHasValue> h1Prime = getCompatibleHVEdgeSet(pSMG1, pSMG2, pObj1, pObj2);
         Set<SMGEdgeHasValue> h2Prime = getCompatibleHVEdgeSet(pSMG2, pSMG1, pObj2, pObj1);
 
-        WritableSMG newSMG1 = SMGFactory.createWritableCopy(pSMG1);
-        WritableSMG newSMG2 = SMGFactory.createWritableCopy(pSMG2);
-
-        newSMG1.replaceHVSet(h1Prime);
-        newSMG2.replaceHVSet(h2Prime);
+        status = joinFieldsRelaxStatus(pSMG1.getNullBytesForObject(pObj1), h1Prime, pSMG1.getNullValue(), status,
+                                       SMGJoinStatus.RIGHT_ENTAIL);
+        status = joinFieldsRelaxStatus(pSMG2.getNullBytesForObject(pObj2), h2Prime, pSMG2.getNullValue(), status,
+                                       SMGJoinStatus.LEFT_ENTAIL);
 
-        status = joinFieldsRelaxStatus(pSMG1, newSMG1, status, SMGJoinStatus.RIGHT_ENTAIL, pObj1);
-        status = joinFieldsRelaxStatus(pSMG2, newSMG2, status, SMGJoinStatus.LEFT_ENTAIL, pObj2);
-
-        Set<SMGEdgeHasValue> smg2Extension = mergeNonNullHasValueEdges(newSMG1, newSMG2, pObj1, pObj2);
-        Set<SMGEdgeHasValue> smg1Extension = mergeNonNullHasValueEdges(newSMG2, newSMG1, pObj2, pObj1);
+        Set<SMGEdgeHasValue> smg2Extension = mergeNonNullHasValueEdges(h1Prime, h2Prime, pSMG1.getNullValue(), pObj2);
+        Set<SMGEdgeHasValue> smg1Extension = mergeNonNullHasValueEdges(h2Prime, h1Prime, pSMG2.getNullValue(), pObj1);
 
         h1Prime.addAll(smg1Extension);
         h2Prime.addAll(smg2Extension);
 
-        newSMG1.replaceHVSet(h1Prime);
-        newSMG2.replaceHVSet(h2Prime);
-
-        finalSMG1 = newSMG1;
-        finalSMG2 = newSMG2;
+        fields1 = Collections.unmodifiableSet(h1Prime);
+        fields2 = Collections.unmodifiableSet(h2Prime);
     }
 
     public SMGJoinStatus getStatus() {
         return status;
     }
 
-    public ReadableSMG getSMG1() {
-        return finalSMG1;
+    /**
+     * @return Fields of the first object after the join
+     */
+    public Set<SMGEdgeHasValue> getFields1() {
+        return fields1;
     }
 
-    public ReadableSMG getSMG2() {
-        return finalSMG2;
+    /**
+     * @return Fields of the second object after the join
+     */
+    public Set<SMGEdgeHasValue> getFields2() {
+        return fields2;
     }
 
   public static Set<SMGEdgeHasValue> mergeNonNullHasValueEdges(final ReadableSMG pSMG1, final ReadableSMG pSMG2,
                                                                final SMGObject pObj1, final SMGObject pObj2) {
-        Set<SMGEdgeHasValue> returnSet = new HashSet<>();
+        return mergeNonNullHasValueEdges(pSMG1.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObj1)),
+                                         pSMG2.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObj2)),
+                                         pSMG1.getNullValue(), pObj2);
+    }
 
-        SMGEdgeHasValueFilter filterForSMG1 = SMGEdgeHasValueFilter.objectFilter(pObj1);
-        SMGEdgeHasValueFilter filterForSMG2 = SMGEdgeHasValueFilter.objectFilter(pObj2);
-        filterForSMG1.filterNotHavingValue(pSMG1.getNullValue());
+    private static Set<SMGEdgeHasValue> mergeNonNullHasValueEdges(final Iterable<SMGEdgeHasValue> pFields1,
+                                                                  final Iterable<SMGEdgeHasValue> pFields2,
+                                                                  final int pNullValue1, final SMGObject pObj2) {
+        Set<SMGEdgeHasValue> returnSet = new HashSet<>();
 
-        for (SMGEdgeHasValue edge : pSMG1.getHVEdges(filterForSMG1)) {
-            filterForSMG2.filterAtOffset(edge.getOffset());
-            filterForSMG2.filterByType(edge.getType());
-            if (!pSMG2.getHVEdges(filterForSMG2).iterator().hasNext()) {
+        for (SMGEdgeHasValue edge : pFields1) {
+            if (edge.getValue() != pNullValue1 && !hasFieldAt(pFields2, edge.getOffset(), edge.getType())) {
               returnSet.add(new SMGEdgeHasValue(edge.getType(), edge.getOffset(), pObj2,
                                                 SMGValueFactory.getNewValue()));
             }
@@ -108,24 +114,55 @@ class SMGJoinFields {
         return Collections.unmodifiableSet(returnSet);
     }
 
+    private static boolean hasFieldAt(final Iterable<SMGEdgeHasValue> pFields, final int pOffset,
+                                      final CType pType) {
+        for (SMGEdgeHasValue edge : pFields) {
+            if (edge.getOffset() == pOffset && edge.getType().equals(pType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static SMGJoinStatus joinFieldsRelaxStatus(final ReadableSMG pOrigSMG, final ReadableSMG pNewSMG,
                                                       final SMGJoinStatus pCurStatus, final SMGJoinStatus pNewStatus,
                                                       final SMGObject pObject) {
-        BitSet origNull = pOrigSMG.getNullBytesForObject(pObject);
-        BitSet newNull = pNewSMG.getNullBytesForObject(pObject);
+        return joinFieldsRelaxStatus(pOrigSMG.getNullBytesForObject(pObject),
+                                     pNewSMG.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObject)),
+                                     pNewSMG.getNullValue(), pCurStatus, pNewStatus);
+    }
 
-        for (int i = 0; i < origNull.length(); i++) {
-            if (origNull.get(i) && (!newNull.get(i))) {
-                return SMGJoinStatus.updateStatus(pCurStatus, pNewStatus);
+    /**
+     * Relaxes the status if some of the bytes nullified in {@link pOrigNull}
+     * are not nullified by {@link pNewFields}.
+     *
+     * @param pOrigNull Nullified bytes of the object before the join, modified by this method
+     */
+    private static SMGJoinStatus joinFieldsRelaxStatus(final BitSet pOrigNull,
+                                                       final Iterable<SMGEdgeHasValue> pNewFields,
+                                                       final int pNullValue, final SMGJoinStatus pCurStatus,
+                                                       final SMGJoinStatus pNewStatus) {
+        for (SMGEdgeHasValue edge : pNewFields) {
+            if (edge.getValue() == pNullValue) {
+                pOrigNull.clear(edge.getOffset(), edge.getOffset() + edge.getSizeInBytes());
             }
         }
 
+        if (!pOrigNull.isEmpty()) {
+            return SMGJoinStatus.updateStatus(pCurStatus, pNewStatus);
+        }
+
         return pCurStatus;
     }
 
+    /**
+     * @return Fields of {@link pObj1} which are compatible with {@link pObj2}:
+     * the fields not having the null value, and the null fields which are
+     * nullified in both objects or which correspond to pointers in {@link pObj2}.
+     */
     public static Set<SMGEdgeHasValue> getCompatibleHVEdgeSet(final ReadableSMG pSMG1, final ReadableSMG pSMG2,
                                                               final SMGObject pObj1, final SMGObject pObj2) {
-        Set<SMGEdgeHasValue> newHVSet = SMGJoinFields.getHVSetWithoutNullValuesOnObject(pSMG1, pObj1);
+        Set<SMGEdgeHasValue> newHVSet = SMGJoinFields.getNonNullFieldsOfObject(pSMG1, pObj1);
 
         newHVSet.addAll(SMGJoinFields.getHVSetOfCommonNullValues(pSMG1, pSMG2, pObj1, pObj2));
         newHVSet.addAll(SMGJoinFields.getHVSetOfMissingNullValues(pSMG1, pSMG2, pObj1, pObj2));
@@ -141,6 +178,7 @@ class SMGJoinFields {
         nonNullPtrInSmg2.filterNotHavingValue(pSMG2.getNullValue());
         SMGEdgeHasValueFilter nonNullPtrInSmg1 = SMGEdgeHasValueFilter.objectFilter(pObj1);
         nonNullPtrInSmg1.filterNotHavingValue(pSMG1.getNullValue());
+        BitSet newNullBytes = pSMG1.getNullBytesForObject(pObj1);
 
         for (SMGEdgeHasValue edge : pSMG2.getHVEdges(nonNullPtrInSmg2)) {
             if (!pSMG2.isPointer(edge.getValue())) {
@@ -150,7 +188,6 @@ class SMGJoinFields {
             nonNullPtrInSmg1.filterAtOffset(edge.getOffset());
 
             if (!pSMG1.getHVEdges(nonNullPtrInSmg1).iterator().hasNext()) {
-                BitSet newNullBytes = pSMG1.getNullBytesForObject(pObj1);
                 int min = edge.getOffset();
                 int max = edge.getOffset() + edge.getSizeInBytes();
 
@@ -183,36 +220,46 @@ class SMGJoinFields {
         return Collections.unmodifiableSet(retset);
     }
 
-    public static Set<SMGEdgeHasValue> getHVSetWithoutNullValuesOnObject(final ReadableSMG pSMG, final SMGObject pObj) {
-        Set<SMGEdgeHasValue> retset = new HashSet<>();
-        Iterables.addAll(retset, pSMG.getHVEdges());
-
-        SMGEdgeHasValueFilter nullValueFilter = SMGEdgeHasValueFilter.objectFilter(pObj);
-        nullValueFilter.filterHavingValue(pSMG.getNullValue());
+    /**
+     * @return A new set of the fields of {@link pObj} not having the null value
+     */
+    public static Set<SMGEdgeHasValue> getNonNullFieldsOfObject(final ReadableSMG pSMG, final SMGObject pObj) {
+        SMGEdgeHasValueFilter nonNullValueFilter = SMGEdgeHasValueFilter.objectFilter(pObj);
+        nonNullValueFilter.filterNotHavingValue(pSMG.getNullValue());
 
-        retset.removeAll(Sets.newHashSet(pSMG.getHVEdges(nullValueFilter)));
+        return Sets.newHashSet(pSMG.getHVEdges(nonNullValueFilter));
+    }
 
-        return retset;
+    private static BitSet getNullBytes(final Iterable<SMGEdgeHasValue> pFields, final int pNullValue) {
+        BitSet nullBytes = new BitSet();
+        for (SMGEdgeHasValue edge : pFields) {
+            if (edge.getValue() == pNullValue) {
+                nullBytes.set(edge.getOffset(), edge.getOffset() + edge.getSizeInBytes());
+            }
+        }
+        return nullBytes;
     }
 
     private static void checkResultConsistencySingleSide(final ReadableSMG pSMG1,
-                                                         final SMGEdgeHasValueFilter nullEdges1,
-                                                         final ReadableSMG pSMG2, final SMGObject pObj2,
+                                                         final Iterable<SMGEdgeHasValue> pFields1,
+                                                         final ReadableSMG pSMG2,
+                                                         final Iterable<SMGEdgeHasValue> pFields2,
                                                          final BitSet nullBytesInSMG2) {
-        for (SMGEdgeHasValue edgeInSMG1 : pSMG1.getHVEdges(nullEdges1)) {
+        for (SMGEdgeHasValue edgeInSMG1 : pFields1) {
+            if (edgeInSMG1.getValue() != pSMG1.getNullValue()) {
+                continue;
+            }
             int start = edgeInSMG1.getOffset();
             int byteAfterEnd = start + edgeInSMG1.getSizeInBytes();
 
-            SMGEdgeHasValueFilter filter = SMGEdgeHasValueFilter.objectFilter(pObj2);
-            filter.filterAtOffset(edgeInSMG1.getOffset()).filterByType(edgeInSMG1.getType());
-
-            Iterable<SMGEdgeHasValue> hvInSMG2Set = pSMG2.getHVEdges(filter);
-
-            SMGEdgeHasValue hvInSMG2;
-            if (hvInSMG2Set.iterator().hasNext()) {
-                hvInSMG2 = Iterables.getOnlyElement(hvInSMG2Set);
-            } else {
-                hvInSMG2 = null;
+            SMGEdgeHasValue hvInSMG2 = null;
+            for (SMGEdgeHasValue edgeInSMG2 : pFields2) {
+                if (edgeInSMG2.getOffset() == start && edgeInSMG2.getType().equals(edgeInSMG1.getType())) {
+                    if (hvInSMG2 != null) {
+                        throw new IllegalArgumentException("Multiple fields of the same type at the same offset");
+                    }
+                    hvInSMG2 = edgeInSMG2;
+                }
             }
 
             if (hvInSMG2 == null || (nullBytesInSMG2.nextClearBit(start) < byteAfterEnd &&
@@ -225,21 +272,29 @@ class SMGJoinFields {
 
     public static void checkResultConsistency(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final SMGObject pObj1,
                                               final SMGObject pObj2) {
-        SMGEdgeHasValueFilter nullEdges1 = SMGEdgeHasValueFilter.objectFilter(pObj1);
-        nullEdges1.filterHavingValue(pSMG1.getNullValue());
-
-        SMGEdgeHasValueFilter nullEdges2 = SMGEdgeHasValueFilter.objectFilter(pObj2);
-        nullEdges2.filterHavingValue(pSMG2.getNullValue());
-        BitSet nullBytesInSMG1 = pSMG1.getNullBytesForObject(pObj1);
-        BitSet nullBytesInSMG2 = pSMG2.getNullBytesForObject(pObj2);
+        checkResultConsistency(pSMG1, pSMG1.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObj1)),
+                               pSMG2, pSMG2.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObj2)));
+    }
 
-        if (Iterables.size(pSMG1.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObj1))) !=
-            Iterables.size(pSMG2.getHVEdges(SMGEdgeHasValueFilter.objectFilter(pObj2)))) {
+    /**
+     * Checks the output assertions of the join on the fields of two objects.
+     *
+     * @param pSMG1 SMG of the first object, used to recognize pointers and the null value
+     * @param pFields1 Fields of the first object
+     * @param pSMG2 SMG of the second object, used to recognize pointers and the null value
+     * @param pFields2 Fields of the second object
+     */
+    public static void checkResultConsistency(final ReadableSMG pSMG1, final Iterable<SMGEdgeHasValue> pFields1,
+                                              final ReadableSMG pSMG2, final Iterable<SMGEdgeHasValue> pFields2) {
+        if (Iterables.size(pFields1) != Iterables.size(pFields2)) {
           String message = "SMGJoinFields output assertion does not hold: objects do not have identical sets of fields";
             throw new IllegalStateException(message);
         }
 
-        checkResultConsistencySingleSide(pSMG1, nullEdges1, pSMG2, pObj2, nullBytesInSMG2);
-        checkResultConsistencySingleSide(pSMG2, nullEdges2, pSMG1, pObj1, nullBytesInSMG1);
+        BitSet nullBytesInSMG1 = getNullBytes(pFields1, pSMG1.getNullValue());
+        BitSet nullBytesInSMG2 = getNullBytes(pFields2, pSMG2.getNullValue());
+
+        checkResultConsistencySingleSide(pSMG1, pFields1, pSMG2, pFields2, nullBytesInSMG2);
+        checkResultConsistencySingleSide(pSMG2, pFields2, pSMG1, pFields1, nullBytesInSMG1);
     }
 }
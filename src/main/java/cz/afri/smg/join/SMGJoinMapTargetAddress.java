@@ -36,10 +36,22 @@ final class SMGJoinMapTargetAddress {
   public SMGJoinMapTargetAddress(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final WritableSMG destSMG,
                                  final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
                                  final Integer pAddress1, final Integer pAddress2) {
+    this(pSMG1, pSMG2, destSMG, pMapping1, pMapping2, pAddress1, pAddress2, false);
+  }
+
+  /**
+   * In check-only mode, {@link destSMG} is not used and may be null. The
+   * address is looked up in and recorded by {@link pMapping1} instead, and
+   * a new address is represented by {@link pAddress1}.
+   */
+  @SuppressWarnings("checkstyle:parameternumber")
+  SMGJoinMapTargetAddress(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final WritableSMG destSMG,
+                          final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
+                          final Integer pAddress1, final Integer pAddress2, final boolean pCheckOnly) {
     smg = destSMG;
     mapping1 = pMapping1;
     mapping2 = pMapping2;
-    SMGObject target = destSMG.getNullObject();
+    SMGObject target = pSMG1.getNullObject();
 
     // TODO: Ugly, refactor
     SMGEdgePointsTo pt = pSMG1.getPointer(pAddress1);
@@ -47,19 +59,23 @@ final class SMGJoinMapTargetAddress {
       target = pMapping1.get(pt.getObject());
     }
 
-    // TODO: Ugly, refactor
-    Iterable<SMGEdgePointsTo> edges = smg.getPTEdges();
-    for (SMGEdgePointsTo edge : edges) {
-      if ((edge.getObject() == target) &&
-          (edge.getOffset() == pt.getOffset())) {
-        value = edge.getValue();
+    if (pCheckOnly) {
+      value = mapping1.getAddress(target, pt.getOffset());
+      if (value != null) {
         return;
       }
+      value = pAddress1;
+      mapping1.addAddress(target, pt.getOffset(), value);
+    } else {
+      // Constant time: the destination SMG indexes its Points-To edges by target and offset
+      value = smg.getAddress(target, pt.getOffset());
+      if (value != null) {
+        return;
+      }
+      value = SMGValueFactory.getNewValue();
+      smg.addValue(value);
+      smg.addPointsToEdge(new SMGEdgePointsTo(value, target, pt.getOffset()));
     }
-
-    value = SMGValueFactory.getNewValue();
-    smg.addValue(value);
-    smg.addPointsToEdge(new SMGEdgePointsTo(value, target, pt.getOffset()));
     mapping1.map(pAddress1, value);
     mapping2.map(pAddress2, value);
   }
@@ -97,9 +97,9 @@ final class SMGJoinMatchObjects {
       Iterable<SMGEdgeHasValue> hv2 = pSMG2.getHVEdges(filter2);
 
       if (hv1.iterator().hasNext() && hv2.iterator().hasNext()) {
-        Integer v1 = Iterators.getOnlyElement(hv1.iterator()).getValue();
-        Integer v2 = Iterators.getOnlyElement(hv2.iterator()).getValue();
-        if (pMapping1.containsKey(v1) && pMapping2.containsKey(v2) && !(pMapping1.get(v1).equals(pMapping2.get(v2)))) {
+        int v1 = Iterators.getOnlyElement(hv1.iterator()).getValue();
+        int v2 = Iterators.getOnlyElement(hv2.iterator()).getValue();
+        if (pMapping1.containsKey(v1) && pMapping2.containsKey(v2) && pMapping1.get(v1, 0) != pMapping2.get(v2, 0)) {
           return true;
         }
       }
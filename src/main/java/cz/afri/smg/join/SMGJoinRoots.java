@@ -0,0 +1,328 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.join;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import cz.afri.smg.collections.IntIntHashMap;
+import cz.afri.smg.graphs.ReadableSMG;
+import cz.afri.smg.graphs.SMGEdgeHasValue;
+import cz.afri.smg.graphs.SMGEdgeHasValueFilter;
+import cz.afri.smg.graphs.SMGEdgePointsTo;
+import cz.afri.smg.graphs.SMGFactory;
+import cz.afri.smg.graphs.SMGValues.SMGExplicitValue;
+import cz.afri.smg.graphs.SMGValues.SMGKnownExpValue;
+import cz.afri.smg.graphs.SMGValues.SMGKnownSymValue;
+import cz.afri.smg.graphs.WritableSMG;
+import cz.afri.smg.objects.SMGObject;
+
+/**
+ * Joins the sub-SMGs of pairs of corresponding variables (roots), either one
+ * after another, or in parallel for groups of roots which reach disjoint
+ * parts of the SMGs.
+ */
+final class SMGJoinRoots {
+  private SMGJoinRoots() { }
+
+  /**
+   * A pair of corresponding variables of the joined SMGs, and the variable of
+   * the joint SMG.
+   */
+  static final class Root {
+    private final SMGObject object1;
+    private final SMGObject object2;
+    private final SMGObject destination;
+
+    Root(final SMGObject pObject1, final SMGObject pObject2, final SMGObject pDestination) {
+      object1 = pObject1;
+      object2 = pObject2;
+      destination = pDestination;
+    }
+  }
+
+  /**
+   * Joins the sub-SMGs of {@link pRoots} one after another, in their order.
+   *
+   * @return Status of the join, or null if the join is undefined
+   */
+  @SuppressWarnings("checkstyle:parameternumber")
+  static SMGJoinStatus join(final SMGJoinStatus pStatus, final ReadableSMG pSMG1, final ReadableSMG pSMG2,
+                            final WritableSMG pDestSMG, final SMGNodeMapping pMapping1,
+                            final SMGNodeMapping pMapping2, final List<Root> pRoots, final boolean pCheckOnly) {
+    SMGJoinStatus status = pStatus;
+    for (Root root : pRoots) {
+      SMGJoinSubSMGs jss = new SMGJoinSubSMGs(status, pSMG1, pSMG2, pDestSMG, pMapping1, pMapping2, root.object1,
+                                              root.object2, root.destination, pCheckOnly);
+      if (!jss.isDefined()) {
+        return null;
+      }
+      status = jss.getStatus();
+    }
+    return status;
+  }
+
+  /**
+   * Joins the sub-SMGs of each group of {@link pPartitions} as a separate task
+   * on {@link pPool}, into a separate SMG with separate copies of the
+   * mappings. The groups have to reach disjoint parts of both SMGs, see
+   * {@link #partition(ReadableSMG, ReadableSMG, List)}. The joint sub-SMGs
+   * are then added to {@link pDestSMG}, unless in check-only mode.
+   *
+   * @return Status of the join, or null if the join is undefined
+   */
+  @SuppressWarnings("checkstyle:parameternumber")
+  static SMGJoinStatus joinInParallel(final ForkJoinPool pPool, final ReadableSMG pSMG1, final ReadableSMG pSMG2,
+                                      final WritableSMG pDestSMG, final SMGNodeMapping pMapping1,
+                                      final SMGNodeMapping pMapping2, final List<List<Root>> pPartitions,
+                                      final boolean pCheckOnly) {
+    List<PartitionJoin> tasks = new ArrayList<>(pPartitions.size());
+    for (List<Root> partition : pPartitions) {
+      tasks.add(new PartitionJoin(pSMG1, pSMG2, new SMGNodeMapping(pMapping1), new SMGNodeMapping(pMapping2),
+                                  partition, pCheckOnly));
+    }
+
+    SMGJoinStatus status = SMGJoinStatus.EQUAL;
+    for (Future<SMGJoinStatus> future : pPool.invokeAll(tasks)) {
+      SMGJoinStatus partitionStatus = getDone(future);
+      if (partitionStatus == null) {
+        return null;
+      }
+      status = SMGJoinStatus.updateStatus(status, partitionStatus);
+      if (pCheckOnly && status == SMGJoinStatus.INCOMPARABLE) {
+        return null;
+      }
+    }
+
+    if (!pCheckOnly) {
+      for (PartitionJoin task : tasks) {
+        addSubSMG(pDestSMG, task.destSMG);
+      }
+    }
+    return status;
+  }
+
+  private static <T> T getDone(final Future<T> pFuture) {
+    try {
+      return pFuture.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while joining SMGs", e);
+    }
+  }
+
+  /**
+   * Adds the objects, values and edges of {@link pSubSMG} to {@link pDestSMG}.
+   */
+  private static void addSubSMG(final WritableSMG pDestSMG, final ReadableSMG pSubSMG) {
+    int nullValue = pSubSMG.getNullValue();
+    for (Integer value : pSubSMG.getValues()) {
+      if (value != nullValue) {
+        pDestSMG.addValue(value);
+        SMGExplicitValue explicit = pSubSMG.getExplicit(SMGKnownSymValue.valueOf(value));
+        if (!explicit.isUnknown()) {
+          pDestSMG.putExplicit(SMGKnownSymValue.valueOf(value), (SMGKnownExpValue) explicit);
+        }
+      }
+    }
+    for (SMGObject object : pSubSMG.getHeapObjects()) {
+      if (object.notNull()) {
+        pDestSMG.addHeapObject(object);
+      }
+    }
+    for (SMGEdgePointsTo pt : pSubSMG.getPTEdges()) {
+      if (pt.getValue() != nullValue) {
+        pDestSMG.addPointsToEdge(pt);
+      }
+    }
+    for (SMGEdgeHasValue hv : pSubSMG.getHVEdges()) {
+      pDestSMG.addHasValueEdge(hv);
+    }
+  }
+
+  /**
+   * Join of a group of roots into a separate SMG.
+   */
+  private static final class PartitionJoin implements Callable<SMGJoinStatus> {
+    private final ReadableSMG smg1;
+    private final ReadableSMG smg2;
+    private final SMGNodeMapping mapping1;
+    private final SMGNodeMapping mapping2;
+    private final List<Root> roots;
+    private final boolean checkOnly;
+    private final WritableSMG destSMG;
+
+    PartitionJoin(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final SMGNodeMapping pMapping1,
+                  final SMGNodeMapping pMapping2, final List<Root> pRoots, final boolean pCheckOnly) {
+      smg1 = pSMG1;
+      smg2 = pSMG2;
+      mapping1 = pMapping1;
+      mapping2 = pMapping2;
+      roots = pRoots;
+      checkOnly = pCheckOnly;
+      if (pCheckOnly) {
+        destSMG = null;
+      } else {
+        destSMG = SMGFactory.createWritableSMG();
+      }
+    }
+
+    @Override
+    public SMGJoinStatus call() {
+      return join(SMGJoinStatus.EQUAL, smg1, smg2, destSMG, mapping1, mapping2, roots, checkOnly);
+    }
+  }
+
+  /**
+   * Groups {@link pRoots} so that roots of different groups reach disjoint
+   * sets of objects and values in both SMGs. Sub-SMGs of different groups
+   * can then be joined independently, with the same result as when joined
+   * one after another. The groups and the roots in them keep the order of
+   * {@link pRoots}.
+   *
+   * All roots may reach the null object through the null value, which every
+   * SMG has. Other addresses of the null object are created by the join, so
+   * roots reaching the null object at the same non-zero offset are grouped
+   * together.
+   */
+  static List<List<Root>> partition(final ReadableSMG pSMG1, final ReadableSMG pSMG2, final List<Root> pRoots) {
+    int[] parents = new int[pRoots.size()];
+    for (int i = 0; i < parents.length; i++) {
+      parents[i] = i;
+    }
+
+    List<SMGObject> roots1 = new ArrayList<>(pRoots.size());
+    List<SMGObject> roots2 = new ArrayList<>(pRoots.size());
+    for (Root root : pRoots) {
+      roots1.add(root.object1);
+      roots2.add(root.object2);
+    }
+    unionReachable(pSMG1, roots1, parents);
+    unionReachable(pSMG2, roots2, parents);
+
+    Map<Integer, List<Root>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < parents.length; i++) {
+      int group = find(parents, i);
+      List<Root> roots = groups.get(group);
+      if (roots == null) {
+        roots = new ArrayList<>();
+        groups.put(group, roots);
+      }
+      roots.add(pRoots.get(i));
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  /**
+   * Traverses the objects and values reachable from {@link pRoots}, and
+   * merges the groups of roots reaching the same object or value.
+   */
+  private static void unionReachable(final ReadableSMG pSMG, final List<SMGObject> pRoots, final int[] pParents) {
+    Map<SMGObject, Integer> objectOwners = new HashMap<>();
+    IntIntHashMap valueOwners = new IntIntHashMap();
+    IntIntHashMap nullOffsetOwners = new IntIntHashMap();
+    Deque<SMGObject> toVisit = new ArrayDeque<>();
+
+    for (int root = 0; root < pRoots.size(); root++) {
+      visit(pRoots.get(root), root, objectOwners, toVisit, pParents);
+
+      while (!toVisit.isEmpty()) {
+        SMGObject object = toVisit.pop();
+        for (SMGEdgeHasValue hv : pSMG.getHVEdges(SMGEdgeHasValueFilter.objectFilter(object))) {
+          int value = hv.getValue();
+          if (value == pSMG.getNullValue()) {
+            continue;
+          }
+          if (valueOwners.containsKey(value)) {
+            union(pParents, root, valueOwners.get(value, root));
+            continue;
+          }
+          valueOwners.put(value, root);
+
+          if (pSMG.isPointer(value)) {
+            SMGEdgePointsTo pt = pSMG.getPointer(value);
+            if (pt.getObject().notNull()) {
+              visit(pt.getObject(), root, objectOwners, toVisit, pParents);
+            } else if (nullOffsetOwners.containsKey(pt.getOffset())) {
+              union(pParents, root, nullOffsetOwners.get(pt.getOffset(), root));
+            } else {
+              nullOffsetOwners.put(pt.getOffset(), root);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static void visit(final SMGObject pObject, final int pRoot, final Map<SMGObject, Integer> pObjectOwners,
+                            final Deque<SMGObject> pToVisit, final int[] pParents) {
+    Integer owner = pObjectOwners.get(pObject);
+    if (owner == null) {
+      pObjectOwners.put(pObject, pRoot);
+      pToVisit.push(pObject);
+    } else {
+      union(pParents, pRoot, owner);
+    }
+  }
+
+  private static int find(final int[] pParents, final int pElement) {
+    int root = pElement;
+    while (pParents[root] != root) {
+      root = pParents[root];
+    }
+    // Path compression
+    int element = pElement;
+    while (pParents[element] != root) {
+      int next = pParents[element];
+      pParents[element] = root;
+      element = next;
+    }
+    return root;
+  }
+
+  private static void union(final int[] pParents, final int pElement1, final int pElement2) {
+    int root1 = find(pParents, pElement1);
+    int root2 = find(pParents, pElement2);
+    if (root1 != root2) {
+      // Keep the smaller index, so that groups are ordered by their first root
+      pParents[Math.max(root1, root2)] = Math.min(root1, root2);
+    }
+  }
+}
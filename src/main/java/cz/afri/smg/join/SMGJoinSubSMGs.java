@@ -21,13 +21,16 @@
  */
 package cz.afri.smg.join;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import com.google.common.collect.Sets;
-
 import cz.afri.smg.graphs.ReadableSMG;
 import cz.afri.smg.graphs.SMGEdgeHasValue;
-import cz.afri.smg.graphs.SMGEdgeHasValueFilter;
 import cz.afri.smg.graphs.WritableSMG;
 import cz.afri.smg.objects.SMGObject;
 
@@ -52,58 +55,157 @@ final class SMGJoinSubSMGs {
   public SMGJoinSubSMGs(final SMGJoinStatus initialStatus, final ReadableSMG pSMG1, final ReadableSMG pSMG2,
                         final WritableSMG pDestSMG, final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
                         final SMGObject pObj1, final SMGObject pObj2, final SMGObject pNewObject) {
+    this(initialStatus, pSMG1, pSMG2, pDestSMG, pMapping1, pMapping2, pObj1, pObj2, pNewObject, false);
+  }
 
-    SMGJoinFields joinFields = new SMGJoinFields(pSMG1, pSMG2, pObj1, pObj2);
-
-    inputSMG1 = joinFields.getSMG1();
-    inputSMG2 = joinFields.getSMG2();
-
-    if (SMGJoinSubSMGs.performChecks) {
-      SMGJoinFields.checkResultConsistency(inputSMG1, inputSMG2, pObj1, pObj2);
-    }
-
+  /**
+   * In check-only mode, nothing is added to {@link pDestSMG}, which may be
+   * null, and the join stops as undefined as soon as the status becomes
+   * {@link SMGJoinStatus#INCOMPARABLE}.
+   *
+   * The sub-SMGs reachable from the objects are joined using an explicit
+   * stack of objects with fields left to join, in the same order as a
+   * recursive join would visit them, so that long paths of pointers do not
+   * exhaust the call stack.
+   */
+  @SuppressWarnings("checkstyle:parameternumber")
+  public SMGJoinSubSMGs(final SMGJoinStatus initialStatus, final ReadableSMG pSMG1, final ReadableSMG pSMG2,
+                        final WritableSMG pDestSMG, final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
+                        final SMGObject pObj1, final SMGObject pObj2, final SMGObject pNewObject,
+                        final boolean pCheckOnly) {
+    inputSMG1 = pSMG1;
+    inputSMG2 = pSMG2;
     destSMG = pDestSMG;
-    status = SMGJoinStatus.updateStatus(initialStatus, joinFields.getStatus());
+    status = initialStatus;
     mapping1 = pMapping1;
     mapping2 = pMapping2;
 
-    /*
-     * After joinFields, the objects have identical set of fields. Therefore, to iterate
-     * over them, it is sufficient to loop over HV set in the first SMG, and just
-     * obtain the (always just single one) corresponding edge from the second
-     * SMG.
-     */
-
-    SMGEdgeHasValueFilter filterOnSMG1 = SMGEdgeHasValueFilter.objectFilter(pObj1);
-    SMGEdgeHasValueFilter filterOnSMG2 = SMGEdgeHasValueFilter.objectFilter(pObj2);
-
-    Set<SMGEdgeHasValue> edgesOnObject1 = Sets.newHashSet(inputSMG1.getHVEdges(filterOnSMG1));
+    Deque<ObjectFields> stack = new ArrayDeque<>();
+    if (!joinFields(stack, new DeferredJoin(pObj1, pObj2, pNewObject), pCheckOnly)) {
+      return;
+    }
 
-    for (SMGEdgeHasValue hvIn1 : edgesOnObject1) {
-      filterOnSMG2.filterAtOffset(hvIn1.getOffset());
-      filterOnSMG2.filterByType(hvIn1.getType());
-      SMGEdgeHasValue hvIn2 = inputSMG2.getUniqueHV(filterOnSMG2, performChecks);
+    while (!stack.isEmpty()) {
+      ObjectFields current = stack.peek();
+      SMGEdgeHasValue hvIn1 = current.fields1[current.next];
+      SMGEdgeHasValue hvIn2 = current.fields2[current.next];
+      current.next++;
+      if (current.next == current.fields1.length) {
+        // Nothing left to do for the object after the sub-SMGs of this field are joined
+        stack.pop();
+      }
 
       SMGJoinValues joinValues = new SMGJoinValues(status, inputSMG1, inputSMG2, destSMG,
-          mapping1, mapping2, hvIn1.getValue(), hvIn2.getValue() /*, ldiff */);
+          mapping1, mapping2, hvIn1.getValue(), hvIn2.getValue() /*, ldiff */, pCheckOnly, true);
 
       if (!joinValues.isDefined()) {
         return;
       }
 
       status = SMGJoinStatus.updateStatus(status, joinValues.getStatus());
-      inputSMG1 = joinValues.getInputSMG1();
-      inputSMG2 = joinValues.getInputSMG2();
-      destSMG = joinValues.getDestinationSMG();
-      mapping1 = joinValues.getMapping1();
-      mapping2 = joinValues.getMapping2();
-      SMGEdgeHasValue newHV = new SMGEdgeHasValue(hvIn1.getType(), hvIn1.getOffset(), pNewObject,
-                                                  joinValues.getValue());
-      destSMG.addHasValueEdge(newHV);
+      if (pCheckOnly && status == SMGJoinStatus.INCOMPARABLE) {
+        return;
+      }
+      if (!pCheckOnly) {
+        SMGEdgeHasValue newHV = new SMGEdgeHasValue(hvIn1.getType(), hvIn1.getOffset(), current.newObject,
+                                                    joinValues.getValue());
+        destSMG.addHasValueEdge(newHV);
+      }
+
+      if (joinValues.getDeferredJoin() != null && !joinFields(stack, joinValues.getDeferredJoin(), pCheckOnly)) {
+        return;
+      }
     }
     defined = true;
   }
 
+  /**
+   * Joins the fields of the objects of {@link pJoin} and pushes them on
+   * {@link pStack}, unless the objects have no fields.
+   *
+   * @return False if the join has to stop as undefined
+   */
+  private boolean joinFields(final Deque<ObjectFields> pStack, final DeferredJoin pJoin, final boolean pCheckOnly) {
+    SMGJoinFields joinFields = new SMGJoinFields(inputSMG1, inputSMG2, pJoin.object1, pJoin.object2);
+    Set<SMGEdgeHasValue> fields1 = joinFields.getFields1();
+    Set<SMGEdgeHasValue> fields2 = joinFields.getFields2();
+
+    if (SMGJoinSubSMGs.performChecks) {
+      SMGJoinFields.checkResultConsistency(inputSMG1, fields1, inputSMG2, fields2);
+    }
+
+    status = SMGJoinStatus.updateStatus(status, joinFields.getStatus());
+    if (pCheckOnly && status == SMGJoinStatus.INCOMPARABLE) {
+      return false;
+    }
+
+    /*
+     * After joinFields, the objects have identical set of fields. Therefore, to iterate
+     * over them, it is sufficient to loop over the fields of the first object, and just
+     * obtain the (always just single one) corresponding field of the second object.
+     * The joined fields are not written back to the input SMGs: the only fields
+     * read from them later are those of objects not joined yet.
+     */
+    if (!fields1.isEmpty()) {
+      pStack.push(new ObjectFields(fields1, fields2, pJoin.newObject));
+    }
+    return true;
+  }
+
+  /**
+   * A join of the sub-SMGs of two objects, which has not started yet.
+   */
+  static final class DeferredJoin {
+    private final SMGObject object1;
+    private final SMGObject object2;
+    private final SMGObject newObject;
+
+    DeferredJoin(final SMGObject pObject1, final SMGObject pObject2, final SMGObject pNewObject) {
+      object1 = pObject1;
+      object2 = pObject2;
+      newObject = pNewObject;
+    }
+  }
+
+  /**
+   * Joined fields of two objects, paired by offset and type, and the position
+   * of the next pair to join the values of.
+   */
+  private static final class ObjectFields {
+    private final SMGEdgeHasValue[] fields1;
+    private final SMGEdgeHasValue[] fields2;
+    private final SMGObject newObject;
+    private int next = 0;
+
+    /**
+     * Both sets are expected to consist of the same offset and type pairs,
+     * which holds for the output of {@link SMGJoinFields}.
+     */
+    ObjectFields(final Set<SMGEdgeHasValue> pFields1, final Set<SMGEdgeHasValue> pFields2,
+                 final SMGObject pNewObject) {
+      Map<Integer, List<SMGEdgeHasValue>> fields2ByOffset = new HashMap<>();
+      for (SMGEdgeHasValue hvIn2 : pFields2) {
+        List<SMGEdgeHasValue> atOffset = fields2ByOffset.get(hvIn2.getOffset());
+        if (atOffset == null) {
+          atOffset = new ArrayList<>(1);
+          fields2ByOffset.put(hvIn2.getOffset(), atOffset);
+        }
+        atOffset.add(hvIn2);
+      }
+
+      fields1 = pFields1.toArray(new SMGEdgeHasValue[pFields1.size()]);
+      fields2 = new SMGEdgeHasValue[fields1.length];
+      for (int i = 0; i < fields1.length; i++) {
+        for (SMGEdgeHasValue hvIn2 : fields2ByOffset.get(fields1[i].getOffset())) {
+          if (hvIn2.getType().equals(fields1[i].getType())) {
+            fields2[i] = hvIn2;
+          }
+        }
+      }
+      newObject = pNewObject;
+    }
+  }
+
   public boolean isDefined() {
     return defined;
   }
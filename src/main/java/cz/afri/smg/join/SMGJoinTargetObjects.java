@@ -36,6 +36,7 @@ final class SMGJoinTargetObjects {
   private Integer value;
   private SMGNodeMapping mapping1;
   private SMGNodeMapping mapping2;
+  private SMGJoinSubSMGs.DeferredJoin deferredJoin = null;
 
   private static boolean matchOffsets(final SMGJoinTargetObjects pJto, final SMGEdgePointsTo pt1,
                                       final SMGEdgePointsTo pt2) {
@@ -49,13 +50,14 @@ final class SMGJoinTargetObjects {
   }
 
   private static boolean checkAlreadyJoined(final SMGJoinTargetObjects pJto, final SMGObject pObj1,
-                                            final SMGObject pObj2, final Integer pAddress1, final Integer pAddress2) {
+                                            final SMGObject pObj2, final Integer pAddress1, final Integer pAddress2,
+                                            final boolean pCheckOnly) {
     if ((!pObj1.notNull()) && (!pObj2.notNull()) ||
         (pJto.mapping1.containsKey(pObj1) && pJto.mapping2.containsKey(pObj2) &&
          pJto.mapping1.get(pObj1) == pJto.mapping2.get(pObj2))) {
       SMGJoinMapTargetAddress mta = new SMGJoinMapTargetAddress(pJto.inputSMG1, pJto.inputSMG2, pJto.destSMG,
                                                         pJto.mapping1, pJto.mapping2,
-                                                        pAddress1, pAddress2);
+                                                        pAddress1, pAddress2, pCheckOnly);
       pJto.defined = true;
       pJto.destSMG = mta.getSMG();
       pJto.mapping1 = mta.getMapping1();
@@ -86,6 +88,34 @@ final class SMGJoinTargetObjects {
                               final ReadableSMG pSMG1, final ReadableSMG pSMG2, final WritableSMG pDestSMG,
                               final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
                               final Integer pAddress1, final Integer pAddress2) {
+    this(pStatus, pSMG1, pSMG2, pDestSMG, pMapping1, pMapping2, pAddress1, pAddress2, false);
+  }
+
+  /**
+   * In check-only mode, nothing is added to {@link pDestSMG}, which may be
+   * null, the joint object is represented by the target object in the first
+   * SMG, and the sub-SMGs of the target objects are joined in check-only
+   * mode.
+   */
+  @SuppressWarnings("checkstyle:parameternumber")
+  public SMGJoinTargetObjects(final SMGJoinStatus pStatus,
+                              final ReadableSMG pSMG1, final ReadableSMG pSMG2, final WritableSMG pDestSMG,
+                              final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
+                              final Integer pAddress1, final Integer pAddress2, final boolean pCheckOnly) {
+    this(pStatus, pSMG1, pSMG2, pDestSMG, pMapping1, pMapping2, pAddress1, pAddress2, pCheckOnly, false);
+  }
+
+  /**
+   * With {@link pDeferSubSMGs}, the sub-SMGs of the target objects are not
+   * joined, but returned by {@link #getDeferredJoin()} instead, and the
+   * join is defined so far.
+   */
+  @SuppressWarnings("checkstyle:parameternumber")
+  SMGJoinTargetObjects(final SMGJoinStatus pStatus,
+                       final ReadableSMG pSMG1, final ReadableSMG pSMG2, final WritableSMG pDestSMG,
+                       final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
+                       final Integer pAddress1, final Integer pAddress2, final boolean pCheckOnly,
+                       final boolean pDeferSubSMGs) {
 
     inputSMG1 = pSMG1;
     inputSMG2 = pSMG2;
@@ -104,7 +134,7 @@ final class SMGJoinTargetObjects {
     SMGObject target1 = pt1.getObject();
     SMGObject target2 = pt2.getObject();
 
-    if (SMGJoinTargetObjects.checkAlreadyJoined(this, target1, target2, pAddress1, pAddress2)) {
+    if (SMGJoinTargetObjects.checkAlreadyJoined(this, target1, target2, pAddress1, pAddress2, pCheckOnly)) {
       return;
     }
 
@@ -112,11 +142,14 @@ final class SMGJoinTargetObjects {
       return;
     }
 
-    SMGObject newObject = target1.join(target2);
+    SMGObject newObject = target1;
+    if (!pCheckOnly) {
+      newObject = target1.join(target2);
 
-    // BUG: In order to actually use a joint SMG, we need this object to be properly
-    //      put into stack or global
-    destSMG.addHeapObject(newObject);
+      // BUG: In order to actually use a joint SMG, we need this object to be properly
+      //      put into stack or global
+      destSMG.addHeapObject(newObject);
+    }
 
     if (mapping1.containsKey(target1)) {
       throw new UnsupportedOperationException("Delayed join not yet implemented");
@@ -126,15 +159,21 @@ final class SMGJoinTargetObjects {
     mapping2.map(target2, newObject);
 
     SMGJoinMapTargetAddress mta = new SMGJoinMapTargetAddress(inputSMG1, inputSMG2, destSMG, mapping1, mapping2,
-                                                              pAddress1, pAddress2);
+                                                              pAddress1, pAddress2, pCheckOnly);
     destSMG = mta.getSMG();
     mapping1 = mta.getMapping1();
     mapping2 = mta.getMapping2();
     value = mta.getValue();
 
+    if (pDeferSubSMGs) {
+      deferredJoin = new SMGJoinSubSMGs.DeferredJoin(target1, target2, newObject);
+      defined = true;
+      return;
+    }
+
     SMGJoinSubSMGs jss = new SMGJoinSubSMGs(status, inputSMG1, inputSMG2, destSMG,
                                             mapping1, mapping2,
-                                            target1, target2, newObject);
+                                            target1, target2, newObject, pCheckOnly);
     if (jss.isDefined()) {
       defined = true;
       status = jss.getStatus();
@@ -176,4 +215,12 @@ final class SMGJoinTargetObjects {
   public SMGNodeMapping getMapping2() {
     return mapping2;
   }
+
+  /**
+   * @return The join of the sub-SMGs of the target objects left to be done,
+   * or null if there is none
+   */
+  SMGJoinSubSMGs.DeferredJoin getDeferredJoin() {
+    return deferredJoin;
+  }
 }
@@ -37,6 +37,9 @@ final class SMGJoinValues {
   private SMGNodeMapping mapping1;
   private SMGNodeMapping mapping2;
   private boolean defined = false;
+  private final boolean checkOnly;
+  private final boolean deferSubSMGs;
+  private SMGJoinSubSMGs.DeferredJoin deferredJoin = null;
 
   @SuppressWarnings("unused")
   private static boolean joinValuesIdentical(final SMGJoinValues pJV, final Integer pV1, final Integer pV2) {
@@ -49,11 +52,14 @@ final class SMGJoinValues {
   }
 
   private static boolean joinValuesAlreadyJoined(final SMGJoinValues pJV, final Integer pV1, final Integer pV2) {
-    if (pJV.mapping1.containsKey(pV1) && pJV.mapping2.containsKey(pV2) &&
-        pJV.mapping1.get(pV1).equals(pJV.mapping2.get(pV2))) {
-      pJV.value = pJV.mapping1.get(pV1);
-      pJV.defined = true;
-      return true;
+    if (pJV.mapping1.containsKey(pV1) && pJV.mapping2.containsKey(pV2)) {
+      // Both values are mapped, so the default is never returned
+      int joint = pJV.mapping1.get(pV1, 0);
+      if (joint == pJV.mapping2.get(pV2, 0)) {
+        pJV.value = joint;
+        pJV.defined = true;
+        return true;
+      }
     }
 
     return false;
@@ -67,8 +73,11 @@ final class SMGJoinValues {
       SMGExplicitValue exp1 = pJV.inputSMG1.getExplicit(SMGKnownSymValue.valueOf(pV1));
       SMGExplicitValue exp2 = pJV.inputSMG2.getExplicit(SMGKnownSymValue.valueOf(pV2));
 
-      Integer newValue = SMGValueFactory.getNewValue();
-      pJV.destSMG.addValue(newValue);
+      Integer newValue = pV1;
+      if (!pJV.checkOnly) {
+        newValue = SMGValueFactory.getNewValue();
+        pJV.destSMG.addValue(newValue);
+      }
       pJV.mapping1.map(pV1, newValue);
       pJV.mapping2.map(pV2, newValue);
       pJV.defined = true;
@@ -78,7 +87,9 @@ final class SMGJoinValues {
         SMGKnownExpValue knownExp1 = (SMGKnownExpValue) exp1;
         SMGKnownExpValue knownExp2 = (SMGKnownExpValue) exp2;
         if (knownExp1.equals(knownExp2)) {
-          pJV.destSMG.putExplicit(SMGKnownSymValue.valueOf(newValue), knownExp1);
+          if (!pJV.checkOnly) {
+            pJV.destSMG.putExplicit(SMGKnownSymValue.valueOf(newValue), knownExp1);
+          }
         } else {
           pJV.status = SMGJoinStatus.updateStatus(pJV.status, SMGJoinStatus.INCOMPARABLE);
         }
@@ -100,7 +111,7 @@ final class SMGJoinValues {
     SMGJoinTargetObjects jto = new SMGJoinTargetObjects(pJV.status,
                                                         pJV.inputSMG1, pJV.inputSMG2, pJV.destSMG,
                                                         pJV.mapping1, pJV.mapping2,
-                                                        pV1, pV2);
+                                                        pV1, pV2, pJV.checkOnly, pJV.deferSubSMGs);
     if (jto.isDefined()) {
       pJV.status = jto.getStatus();
       pJV.inputSMG1 = jto.getInputSMG1();
@@ -109,6 +120,7 @@ final class SMGJoinValues {
       pJV.mapping1 = jto.getMapping1();
       pJV.mapping2 = jto.getMapping2();
       pJV.value = jto.getValue();
+      pJV.deferredJoin = jto.getDeferredJoin();
       pJV.defined = true;
       return true;
     }
@@ -124,6 +136,31 @@ final class SMGJoinValues {
   public SMGJoinValues(final SMGJoinStatus pStatus, final ReadableSMG pSMG1, final ReadableSMG pSMG2,
                        final WritableSMG pDestSMG, final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
                         final Integer pValue1, final Integer pValue2) {
+    this(pStatus, pSMG1, pSMG2, pDestSMG, pMapping1, pMapping2, pValue1, pValue2, false);
+  }
+
+  /**
+   * In check-only mode, nothing is added to {@link pDestSMG}, which may be
+   * null, a new joint value is represented by {@link pValue1}, and the joins
+   * of target objects are done in check-only mode.
+   */
+  @SuppressWarnings("checkstyle:parameternumber")
+  public SMGJoinValues(final SMGJoinStatus pStatus, final ReadableSMG pSMG1, final ReadableSMG pSMG2,
+                       final WritableSMG pDestSMG, final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
+                       final Integer pValue1, final Integer pValue2, final boolean pCheckOnly) {
+    this(pStatus, pSMG1, pSMG2, pDestSMG, pMapping1, pMapping2, pValue1, pValue2, pCheckOnly, false);
+  }
+
+  /**
+   * With {@link pDeferSubSMGs}, the sub-SMGs of newly joined target objects
+   * are not joined, but returned by {@link #getDeferredJoin()} instead.
+   */
+  @SuppressWarnings("checkstyle:parameternumber")
+  SMGJoinValues(final SMGJoinStatus pStatus, final ReadableSMG pSMG1, final ReadableSMG pSMG2,
+                final WritableSMG pDestSMG, final SMGNodeMapping pMapping1, final SMGNodeMapping pMapping2,
+                final Integer pValue1, final Integer pValue2, final boolean pCheckOnly, final boolean pDeferSubSMGs) {
+    checkOnly = pCheckOnly;
+    deferSubSMGs = pDeferSubSMGs;
     mapping1 = pMapping1;
     mapping2 = pMapping2;
     status = pStatus;
@@ -188,4 +225,12 @@ final class SMGJoinValues {
   public boolean isDefined() {
     return defined;
   }
+
+  /**
+   * @return The join of the sub-SMGs of target objects left to be done, or
+   * null if there is none
+   */
+  SMGJoinSubSMGs.DeferredJoin getDeferredJoin() {
+    return deferredJoin;
+  }
 }
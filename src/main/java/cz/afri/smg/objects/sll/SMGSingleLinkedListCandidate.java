@@ -21,21 +21,18 @@
  */
 package cz.afri.smg.objects.sll;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import cz.afri.smg.abstraction.SMGAbstractionCandidate;
 import cz.afri.smg.graphs.ReadableSMG;
 import cz.afri.smg.graphs.SMGEdgeHasValue;
 import cz.afri.smg.graphs.SMGEdgeHasValueFilter;
 import cz.afri.smg.graphs.SMGEdgePointsTo;
 import cz.afri.smg.graphs.SMGFactory;
+import cz.afri.smg.graphs.SMGTransaction;
 import cz.afri.smg.graphs.WritableSMG;
 import cz.afri.smg.objects.SMGObject;
 import cz.afri.smg.objects.SMGRegion;
 import cz.afri.smg.types.CPointerType;
 import cz.afri.smg.types.CType;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 class SMGSingleLinkedListCandidate implements SMGAbstractionCandidate {
   private final SMGObject start;
@@ -53,30 +50,22 @@ class SMGSingleLinkedListCandidate implements SMGAbstractionCandidate {
     return 0;
   }
 
-  @SuppressFBWarnings(value = "WMI_WRONG_MAP_ITERATOR", justification = "We need to iterate over keys here")
   @Override
   public final ReadableSMG execute(final ReadableSMG pSMG) {
     // TMP: This will result in a new SMG
     WritableSMG newSMG = SMGFactory.createWritableCopy(pSMG);
 
+    // The edits are applied at once at the end, so the loops below read the SMG before the abstraction
+    SMGTransaction transaction = newSMG.beginTransaction();
+
     // TMP: Create an appropriate SLL and add it to new SMG
     SMGSingleLinkedList sll = new SMGSingleLinkedList((SMGRegion) start, offset, length);
-    newSMG.addHeapObject(sll);
-
-    Map<SMGEdgePointsTo, SMGEdgePointsTo> toReplace = new HashMap<>();
+    transaction.addHeapObject(sll);
 
     // TMP: Replace all edges pointing to starting element with ones leading to the SLL
-    //TODO: Better filtering of the pointers!!!
-    for (SMGEdgePointsTo pt : newSMG.getPTEdges()) {
-      if (pt.getObject().equals(start)) {
-        SMGEdgePointsTo newPt = new SMGEdgePointsTo(pt.getValue(), sll, pt.getOffset());
-        toReplace.put(pt, newPt);
-      }
-    }
-
-    for (SMGEdgePointsTo pt : toReplace.keySet()) {
-      newSMG.removePointsToEdge(pt.getValue());
-      newSMG.addPointsToEdge(toReplace.get(pt));
+    for (SMGEdgePointsTo pt : newSMG.getPTEdgesToObject(start)) {
+      transaction.removePointsToEdge(pt.getValue());
+      transaction.addPointsToEdge(new SMGEdgePointsTo(pt.getValue(), sll, pt.getOffset()));
     }
 
     SMGObject node = start;
@@ -84,8 +73,8 @@ class SMGSingleLinkedListCandidate implements SMGAbstractionCandidate {
     SMGEdgeHasValue edgeToFollow = null;
     for (int i = 0; i < length; i++) {
       if (value != null) {
-        newSMG.removePointsToEdge(value);
-        newSMG.removeValue(value);
+        transaction.removePointsToEdge(value);
+        transaction.removeValue(value);
       }
 
       SMGEdgeHasValueFilter filter = SMGEdgeHasValueFilter.objectFilter(node).filterAtOffset(offset);
@@ -102,11 +91,12 @@ class SMGSingleLinkedListCandidate implements SMGAbstractionCandidate {
       }
 
       value = edgeToFollow.getValue();
-      newSMG.removeHeapObject(node);
+      transaction.removeHeapObject(node);
       node = newSMG.getPointer(value).getObject();
     }
     SMGEdgeHasValue newOutbound = new SMGEdgeHasValue(edgeToFollow.getType(), offset, sll, value);
-    newSMG.addHasValueEdge(newOutbound);
+    transaction.addHasValueEdge(newOutbound);
+    transaction.commit();
 
     return newSMG;
   }
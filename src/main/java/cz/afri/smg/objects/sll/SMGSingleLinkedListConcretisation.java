@@ -20,13 +20,10 @@
 
 package cz.afri.smg.objects.sll;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Sets;
 
 import cz.afri.smg.abstraction.SMGConcretisation;
 import cz.afri.smg.graphs.ReadableSMG;
@@ -34,11 +31,11 @@ import cz.afri.smg.graphs.SMGEdgeHasValue;
 import cz.afri.smg.graphs.SMGEdgeHasValueFilter;
 import cz.afri.smg.graphs.SMGEdgePointsTo;
 import cz.afri.smg.graphs.SMGFactory;
+import cz.afri.smg.graphs.SMGTransaction;
 import cz.afri.smg.graphs.SMGValueFactory;
 import cz.afri.smg.graphs.WritableSMG;
 import cz.afri.smg.objects.SMGRegion;
 import cz.afri.smg.types.CPointerType;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 class SMGSingleLinkedListConcretisation implements SMGConcretisation {
 
@@ -48,38 +45,31 @@ class SMGSingleLinkedListConcretisation implements SMGConcretisation {
     sll = pSll;
   }
 
-  @SuppressFBWarnings(value = "WMI_WRONG_MAP_ITERATOR", justification = "We need to iterate over keys here")
   @Override
   public final Set<ReadableSMG> execute(final ReadableSMG pSMG) {
     Set<ReadableSMG> resultSet = new HashSet<>();
 
     WritableSMG newSMG = SMGFactory.createWritableCopy(pSMG);
+    SMGTransaction transaction = newSMG.beginTransaction();
 
     // Create new concrete object
     SMGRegion region = new SMGRegion(sll.getSize(), sll.getLabel() + "_element");
-    newSMG.addHeapObject(region);
+    transaction.addHeapObject(region);
 
     // Replace all edges pointing to SLL with ones pointing to new region
-    Map<SMGEdgePointsTo, SMGEdgePointsTo> toReplace = new HashMap<>();
-    for (SMGEdgePointsTo pt : newSMG.getPTEdges()) {
-      if (pt.getObject().equals(sll)) {
-        SMGEdgePointsTo newPt = new SMGEdgePointsTo(pt.getValue(), region, sll.getOffset());
-        toReplace.put(pt, newPt);
-      }
-    }
-
-    for (SMGEdgePointsTo pt : toReplace.keySet()) {
-      newSMG.removePointsToEdge(pt.getValue());
-      newSMG.addPointsToEdge(toReplace.get(pt));
+    for (SMGEdgePointsTo pt : newSMG.getPTEdgesToObject(sll)) {
+      transaction.removePointsToEdge(pt.getValue());
+      transaction.addPointsToEdge(new SMGEdgePointsTo(pt.getValue(), region, sll.getOffset()));
     }
 
     // Create new connection between new region and SLL
     Integer newValue = SMGValueFactory.getNewValue();
-    newSMG.addValue(newValue);
+    transaction.addValue(newValue);
     SMGEdgeHasValue newValueHv = new SMGEdgeHasValue(new CPointerType(), sll.getOffset(), region, newValue);
-    newSMG.addHasValueEdge(newValueHv);
+    transaction.addHasValueEdge(newValueHv);
     SMGEdgePointsTo newValuePt = new SMGEdgePointsTo(newValue, sll, sll.getOffset());
-    newSMG.addPointsToEdge(newValuePt);
+    transaction.addPointsToEdge(newValuePt);
+    transaction.commit();
 
     if (sll.getLength() > 0) {
       // Shorten SLL
@@ -101,26 +91,26 @@ class SMGSingleLinkedListConcretisation implements SMGConcretisation {
             .filterByType(CPointerType.getVoidPointer()), false).getValue();
       }
 
-      for (SMGEdgePointsTo pt : newSMGWithoutSll.getPTEdges()) {
-        if (pt.getObject().equals(sll)) {
-          SMGEdgeHasValueFilter filter = new SMGEdgeHasValueFilter().filterHavingValue(pt.getValue());
-          SMGEdgeHasValue oldHv = newSMGWithoutSll.getUniqueHV(filter, false);
-          SMGEdgeHasValue newHv = new SMGEdgeHasValue(CPointerType.getVoidPointer(), sll.getOffset(), oldHv.getObject(),
-              value);
-          newSMGWithoutSll.addHasValueEdge(newHv);
-          newSMGWithoutSll.removeHasValueEdge(oldHv);
-          newSMGWithoutSll.removePointsToEdge(oldHv.getValue());
-          newSMGWithoutSll.removeValue(oldHv.getValue());
-        }
+      SMGTransaction bypass = newSMGWithoutSll.beginTransaction();
+      for (SMGEdgePointsTo pt : newSMGWithoutSll.getPTEdgesToObject(sll)) {
+        SMGEdgeHasValueFilter filter = new SMGEdgeHasValueFilter().filterHavingValue(pt.getValue());
+        SMGEdgeHasValue oldHv = newSMGWithoutSll.getUniqueHV(filter, false);
+        SMGEdgeHasValue newHv = new SMGEdgeHasValue(CPointerType.getVoidPointer(), sll.getOffset(), oldHv.getObject(),
+            value);
+        bypass.addHasValueEdge(newHv);
+        bypass.removeHasValueEdge(oldHv);
+        bypass.removePointsToEdge(oldHv.getValue());
+        bypass.removeValue(oldHv.getValue());
       }
+      bypass.commit();
 
       // Remove SLL and all appropriate edges
-      SMGEdgeHasValueFilter filter = SMGEdgeHasValueFilter.objectFilter(sll);
-      Set<SMGEdgeHasValue> toRemove = Sets.newHashSet(newSMGWithoutSll.getHVEdges(filter));
-      for (SMGEdgeHasValue hv : toRemove) {
-        newSMGWithoutSll.removeHasValueEdge(hv);
+      SMGTransaction removal = newSMGWithoutSll.beginTransaction();
+      for (SMGEdgeHasValue hv : newSMGWithoutSll.getHVEdges(SMGEdgeHasValueFilter.objectFilter(sll))) {
+        removal.removeHasValueEdge(hv);
       }
-      newSMGWithoutSll.removeHeapObject(sll);
+      removal.removeHeapObject(sll);
+      removal.commit();
 
       resultSet.add(newSMGWithoutSll);
     }
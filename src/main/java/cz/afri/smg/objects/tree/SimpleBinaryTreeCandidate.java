@@ -30,6 +30,7 @@ import cz.afri.smg.graphs.SMGEdgeHasValue;
 import cz.afri.smg.graphs.SMGEdgeHasValueFilter;
 import cz.afri.smg.graphs.SMGEdgePointsTo;
 import cz.afri.smg.graphs.SMGFactory;
+import cz.afri.smg.graphs.SMGTransaction;
 import cz.afri.smg.graphs.WritableSMG;
 import cz.afri.smg.objects.SMGObject;
 import cz.afri.smg.objects.SMGRegion;
@@ -61,28 +62,31 @@ class SimpleBinaryTreeCandidate implements SMGAbstractionCandidate {
     return 0;
   }
 
-  private void cleanSubtreeAtOffset(final WritableSMG pSMG, final Deque<SMGObject> pStack, final SMGObject pOrigin,
-                                    final int pOffset) {
+  private void cleanSubtreeAtOffset(final WritableSMG pSMG, final SMGTransaction pTransaction,
+                                    final Deque<SMGObject> pStack, final SMGObject pOrigin, final int pOffset) {
     SMGEdgeHasValue hvLower = pSMG.getUniqueHV(SMGEdgeHasValueFilter.objectFilter(pOrigin).filterAtOffset(pOffset),
                                                true);
     SMGEdgePointsTo ptLower = pSMG.getPointer(hvLower.getValue());
-    pSMG.removeHasValueEdge(hvLower);
+    pTransaction.removeHasValueEdge(hvLower);
     if (ptLower.getValue() != pSMG.getNullValue()) {
-      pSMG.removePointsToEdge(ptLower.getValue());
-      pSMG.removeValue(ptLower.getValue());
+      pTransaction.removePointsToEdge(ptLower.getValue());
+      pTransaction.removeValue(ptLower.getValue());
       pStack.push(ptLower.getObject());
     }
   }
 
   private void cleanAbstractedObjects(final WritableSMG pNewSMG) {
+    // The subtrees lose their references one by one, so they are removed at once to not be reported as leaked
+    SMGTransaction transaction = pNewSMG.beginTransaction();
     Deque<SMGObject> stack = new ArrayDeque<>();
     stack.push(root);
     while (!stack.isEmpty()) {
       SMGObject toDelete = stack.pop();
-      cleanSubtreeAtOffset(pNewSMG, stack, toDelete, binding.getLowerOffset());
-      cleanSubtreeAtOffset(pNewSMG, stack, toDelete, binding.getHigherOffset());
-      pNewSMG.removeHeapObject(toDelete);
+      cleanSubtreeAtOffset(pNewSMG, transaction, stack, toDelete, binding.getLowerOffset());
+      cleanSubtreeAtOffset(pNewSMG, transaction, stack, toDelete, binding.getHigherOffset());
+      transaction.removeHeapObject(toDelete);
     }
+    transaction.commit();
   }
 
   @Override
@@ -95,10 +99,8 @@ class SimpleBinaryTreeCandidate implements SMGAbstractionCandidate {
     		                                   newSMG.getNullValue()));
     newSMG.addHasValueEdge(new SMGEdgeHasValue(CPointerType.getVoidPointer(), binding.getHigherOffset(), tree,
     		                                   newSMG.getNullValue()));
-    for (SMGEdgePointsTo pt : pSMG.getPTEdges()) {
-      if (pt.getObject().equals(root)) {
-        newSMG.addPointsToEdge(new SMGEdgePointsTo(pt.getValue(), tree, pt.getOffset()));
-      }
+    for (SMGEdgePointsTo pt : pSMG.getPTEdgesToObject(root)) {
+      newSMG.addPointsToEdge(new SMGEdgePointsTo(pt.getValue(), tree, pt.getOffset()));
     }
 
     cleanAbstractedObjects(newSMG);
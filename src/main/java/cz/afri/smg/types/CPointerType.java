@@ -26,12 +26,14 @@ public class CPointerType extends CType {
 
 	private static final int POINTER_SIZE = 8;
 
+	private static final CPointerType VOID_POINTER = new CPointerType();
+
   public CPointerType() {
     super(POINTER_SIZE);
   }
 
   public static CType getVoidPointer() {
-		return new CPointerType();
+		return VOID_POINTER;
 	}
 
 }
@@ -21,21 +21,56 @@
  */
 package cz.afri.smg.types;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A C type, characterised only by its size.
+ *
+ * Types obtained through the static factory methods are interned: all types
+ * of the same size obtained that way are the same instance.
+ */
 public class CType {
 
 	private static final int SIZE_INT = 4;
 	private static final int SIZE_POINTER = 8;
 
+	/**
+	 * Types of sizes below this bound are created upfront, larger ones on demand.
+	 */
+	private static final int PREALLOCATED_SIZES = 256;
+
+	private static final CType[] SMALL_TYPES = new CType[PREALLOCATED_SIZES];
+	private static final ConcurrentMap<Integer, CType> LARGE_TYPES = new ConcurrentHashMap<>();
+
+	static {
+		for (int size = 0; size < PREALLOCATED_SIZES; size++) {
+			SMALL_TYPES[size] = new CType(size);
+		}
+	}
+
 	public static CType createTypeWithLength(final int pSizeInBytes) {
-		return new CType(pSizeInBytes);
+		if (pSizeInBytes >= 0 && pSizeInBytes < PREALLOCATED_SIZES) {
+			return SMALL_TYPES[pSizeInBytes];
+		}
+
+		CType type = LARGE_TYPES.get(pSizeInBytes);
+		if (type == null) {
+			CType newType = new CType(pSizeInBytes);
+			type = LARGE_TYPES.putIfAbsent(pSizeInBytes, newType);
+			if (type == null) {
+				type = newType;
+			}
+		}
+		return type;
 	}
 
 	public static CType getIntType() {
-		return createTypeWithLength(SIZE_INT);
+		return SMALL_TYPES[SIZE_INT];
 	}
 
 	public static CType getPointerType() {
-    return createTypeWithLength(SIZE_POINTER);
+    return SMALL_TYPES[SIZE_POINTER];
   }
 
 	public static CType unknownType() {
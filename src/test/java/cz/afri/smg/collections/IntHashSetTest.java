@@ -0,0 +1,91 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntHashSetTest {
+  private static final int OPERATIONS = 20000;
+  private static final int KEY_RANGE = 300;
+  private static final int SEED = 42;
+
+  @Test
+  public final void zeroTest() {
+    IntHashSet set = new IntHashSet();
+    Assert.assertFalse(set.contains(0));
+    Assert.assertTrue(set.add(0));
+    Assert.assertFalse(set.add(0));
+    Assert.assertTrue(set.contains(0));
+    Assert.assertEquals(1, set.size());
+    Assert.assertTrue(Arrays.equals(new int[] {0}, set.toIntArray()));
+    Assert.assertTrue(set.remove(0));
+    Assert.assertTrue(set.isEmpty());
+  }
+
+  @Test
+  public final void randomOperationsTest() {
+    Random random = new Random(SEED);
+    Set<Integer> reference = new HashSet<>();
+    IntHashSet set = new IntHashSet();
+
+    for (int i = 0; i < OPERATIONS; i++) {
+      int key = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+      if (random.nextBoolean()) {
+        Assert.assertEquals(reference.add(key), set.add(key));
+      } else {
+        Assert.assertEquals(reference.remove(key), set.remove(key));
+      }
+      Assert.assertEquals(reference.size(), set.size());
+    }
+
+    for (int key = -KEY_RANGE; key < KEY_RANGE; key++) {
+      Assert.assertEquals(reference.contains(key), set.contains(key));
+    }
+    Assert.assertEquals(reference, set);
+    Assert.assertEquals(set, reference);
+    Assert.assertEquals(reference.hashCode(), set.hashCode());
+    Assert.assertEquals(reference, new HashSet<>(set));
+  }
+
+  @Test
+  public final void copyTest() {
+    IntHashSet set = new IntHashSet();
+    set.add(1);
+    set.add(2);
+    IntHashSet copy = new IntHashSet(set);
+    copy.remove(1);
+    copy.add(3);
+
+    Assert.assertTrue(set.contains(1));
+    Assert.assertFalse(set.contains(3));
+    Assert.assertNotEquals(set, copy);
+    set.remove(1);
+    set.add(3);
+    Assert.assertEquals(set, copy);
+  }
+}
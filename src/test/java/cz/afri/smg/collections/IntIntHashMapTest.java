@@ -0,0 +1,81 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntIntHashMapTest {
+  private static final int OPERATIONS = 20000;
+  private static final int KEY_RANGE = 300;
+  private static final int SEED = 42;
+  private static final int MISSING = -1;
+
+  @Test
+  public final void zeroKeyTest() {
+    IntIntHashMap map = new IntIntHashMap();
+    Assert.assertFalse(map.containsKey(0));
+    Assert.assertEquals(MISSING, map.get(0, MISSING));
+    map.put(0, 1);
+    map.put(0, 2);
+    Assert.assertEquals(1, map.size());
+    Assert.assertEquals(2, map.get(0, MISSING));
+    Assert.assertTrue(map.remove(0));
+    Assert.assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public final void randomOperationsTest() {
+    Random random = new Random(SEED);
+    Map<Integer, Integer> reference = new HashMap<>();
+    IntIntHashMap map = new IntIntHashMap();
+
+    for (int i = 0; i < OPERATIONS; i++) {
+      int key = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+      if (random.nextBoolean()) {
+        reference.put(key, i);
+        map.put(key, i);
+      } else {
+        Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+      }
+      Assert.assertEquals(reference.size(), map.size());
+    }
+
+    for (int key = -KEY_RANGE; key < KEY_RANGE; key++) {
+      Assert.assertEquals(reference.containsKey(key), map.containsKey(key));
+      if (reference.containsKey(key)) {
+        Assert.assertEquals(reference.get(key).intValue(), map.get(key, MISSING));
+      }
+    }
+    Assert.assertEquals(reference.hashCode(), map.hashCode());
+
+    IntIntHashMap copy = new IntIntHashMap(map);
+    Assert.assertEquals(map, copy);
+    copy.put(KEY_RANGE, 0);
+    Assert.assertNotEquals(map, copy);
+    Assert.assertFalse(map.containsKey(KEY_RANGE));
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+
+public class IntSetMultimapTest {
+  private static final int OPERATIONS = 20000;
+  private static final int KEY_RANGE = 100;
+  private static final int SEED = 42;
+
+  @Test
+  public final void randomOperationsTest() {
+    Random random = new Random(SEED);
+    SetMultimap<Integer, Integer> reference = HashMultimap.create();
+    IntSetMultimap multimap = new IntSetMultimap();
+
+    for (int i = 0; i < OPERATIONS; i++) {
+      int key = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+      int value = random.nextInt(KEY_RANGE);
+      int operation = random.nextInt(KEY_RANGE);
+      if (operation == 0) {
+        reference.removeAll(key);
+        multimap.removeAll(key);
+      } else if (operation % 2 == 0) {
+        Assert.assertEquals(reference.put(key, value), multimap.put(key, value));
+      } else {
+        Assert.assertEquals(reference.remove(key, value), multimap.remove(key, value));
+      }
+      Assert.assertEquals(reference.size(), multimap.size());
+    }
+
+    for (int key = -KEY_RANGE; key < KEY_RANGE; key++) {
+      Assert.assertEquals(reference.get(key), multimap.get(key));
+      Assert.assertEquals(reference.get(key).size(), multimap.getValues(key).length);
+    }
+    Assert.assertEquals(reference.hashCode(), multimap.hashCode());
+  }
+
+  @Test
+  public final void copyTest() {
+    IntSetMultimap multimap = new IntSetMultimap();
+    multimap.put(0, 1);
+    multimap.put(0, 2);
+    IntSetMultimap copy = new IntSetMultimap(multimap);
+    Assert.assertEquals(multimap, copy);
+
+    copy.remove(0, 1);
+    Assert.assertTrue(multimap.containsEntry(0, 1));
+    Assert.assertFalse(copy.containsEntry(0, 1));
+    Assert.assertNotEquals(multimap, copy);
+
+    IntSetMultimap union = new IntSetMultimap();
+    union.put(0, 1);
+    union.putAll(copy);
+    Assert.assertEquals(multimap, union);
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.collections;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PersistentHashMapTest {
+  private static final int OPERATIONS = 20000;
+  private static final int KEY_RANGE = 3000;
+  private static final int SEED = 42;
+
+  /**
+   * A key with a badly distributed hash code, forcing collisions in the trie.
+   */
+  private static final class CollidingKey {
+    private final int id;
+
+    CollidingKey(final int pId) {
+      id = pId;
+    }
+
+    @Override
+    public int hashCode() {
+      return id % 2;
+    }
+
+    @Override
+    public boolean equals(final Object pOther) {
+      return pOther instanceof CollidingKey && ((CollidingKey) pOther).id == id;
+    }
+  }
+
+  @Test
+  public final void emptyTest() {
+    PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+    Assert.assertTrue(map.isEmpty());
+    Assert.assertNull(map.get(1));
+    Assert.assertSame(map, map.minus(1));
+  }
+
+  @Test
+  public final void sharingTest() {
+    PersistentHashMap<Integer, String> map1 = PersistentHashMap.<Integer, String>empty().plus(1, "one");
+    PersistentHashMap<Integer, String> map2 = map1.plus(2, "two");
+
+    Assert.assertEquals(1, map1.size());
+    Assert.assertEquals(2, map2.size());
+    Assert.assertFalse(map1.containsKey(2));
+    Assert.assertEquals("two", map2.get(2));
+    Assert.assertSame(map2, map2.plus(2, "two"));
+
+    PersistentHashMap<Integer, String> map3 = map2.minus(1);
+    Assert.assertEquals("one", map2.get(1));
+    Assert.assertFalse(map3.containsKey(1));
+    Assert.assertEquals(map1.plus(2, "two"), map2);
+  }
+
+  @Test
+  public final void randomOperationsTest() {
+    Random random = new Random(SEED);
+    Map<Integer, Integer> reference = new HashMap<>();
+    PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+
+    for (int i = 0; i < OPERATIONS; i++) {
+      Integer key = random.nextInt(KEY_RANGE) - KEY_RANGE / 2;
+      if (random.nextBoolean()) {
+        reference.put(key, i);
+        map = map.plus(key, i);
+      } else {
+        reference.remove(key);
+        map = map.minus(key);
+      }
+      Assert.assertEquals(reference.get(key), map.get(key));
+    }
+
+    Assert.assertEquals(reference.size(), map.size());
+    Assert.assertEquals(reference, map);
+    Assert.assertEquals(reference.hashCode(), map.hashCode());
+  }
+
+  @Test
+  public final void collisionTest() {
+    Random random = new Random(SEED);
+    Set<Integer> reference = new HashSet<>();
+    PersistentHashSet<CollidingKey> set = PersistentHashSet.empty();
+
+    for (int i = 0; i < OPERATIONS / 10; i++) {
+      int id = random.nextInt(KEY_RANGE / 10);
+      if (random.nextBoolean()) {
+        reference.add(id);
+        set = set.plus(new CollidingKey(id));
+      } else {
+        reference.remove(id);
+        set = set.minus(new CollidingKey(id));
+      }
+      Assert.assertEquals(reference.contains(id), set.contains(new CollidingKey(id)));
+    }
+
+    Assert.assertEquals(reference.size(), set.size());
+    for (CollidingKey key : set) {
+      Assert.assertTrue(reference.contains(key.id));
+    }
+  }
+
+  @Test
+  public final void setHashCodeTest() {
+    Random random = new Random(SEED);
+    Set<Integer> reference = new HashSet<>();
+    PersistentHashSet<Integer> set = PersistentHashSet.empty();
+
+    for (int i = 0; i < OPERATIONS; i++) {
+      Integer key = random.nextInt(KEY_RANGE);
+      if (random.nextBoolean()) {
+        reference.add(key);
+        set = set.plus(key);
+      } else {
+        reference.remove(key);
+        set = set.minus(key);
+      }
+    }
+
+    Assert.assertEquals(reference.hashCode(), set.hashCode());
+    Assert.assertEquals(reference, set);
+    Assert.assertEquals(PersistentHashSet.copyOf(reference), set);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public final void immutableSetTest() {
+    PersistentHashSet<Integer> set = PersistentHashSet.<Integer>empty().plus(1);
+    set.add(2);
+  }
+}
@@ -23,6 +23,7 @@ package cz.afri.smg.graphs;
 
 import static org.mockito.Mockito.mock;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,6 +32,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import cz.afri.smg.objects.SMGObject;
 import cz.afri.smg.objects.SMGRegion;
@@ -106,6 +108,80 @@ public class CLangSMGTest {
     Assert.assertEquals(hv, smgCopy.getUniqueHV(filter, true));
   }
 
+  @Test
+  public final void cLangSMGCopyOnWriteTest() {
+    checkCopyIndependence(true);
+  }
+
+  @Test
+  public final void cLangSMGEagerCopyTest() {
+    checkCopyIndependence(false);
+  }
+
+  private void checkCopyIndependence(final boolean pCopyOnWrite) {
+    CLangSMG smg = getNewCLangSMG64();
+    Integer val1 = Integer.valueOf(1);
+    Integer val2 = Integer.valueOf(2);
+    Integer val3 = Integer.valueOf(3);
+    smg.addValue(val1);
+    smg.addValue(val2);
+    smg.addValue(val3);
+    smg.addStackFrame(FUNCTION_DECLARATION);
+    SMGRegion local = smg.addLocalVariable(TYPE8, "local");
+
+    CLangSMG smgCopy = new CLangSMG(smg, pCopyOnWrite);
+    Assert.assertTrue(smgCopy.isIdenticalTo((ReadableSMG) smg));
+
+    smgCopy.addNeqRelation(val1, val2);
+    smgCopy.removeValue(val3);
+    smgCopy.addLocalVariable(TYPE16, "other");
+    smgCopy.addStackFrame(FUNCTION_DECLARATION);
+    Assert.assertTrue(CLangSMGConsistencyVerifier.verifyCLangSMG(smgCopy));
+
+    Assert.assertFalse(smg.haveNeqRelation(val1, val2));
+    Assert.assertTrue(smg.getValues().contains(val3));
+    Assert.assertEquals(1, smg.getStackFrames().size());
+    Assert.assertFalse(smg.hasLocalVariable("other"));
+
+    smg.dropStackFrame();
+    Assert.assertEquals(2, smgCopy.getStackFrames().size());
+    Assert.assertEquals(local, smgCopy.getStackFrames().peekLast().getVariable("local"));
+    Assert.assertTrue(smgCopy.haveNeqRelation(val2, val1));
+  }
+
+  @Test
+  public final void cLangSMGHashCodeTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    Integer val1 = Integer.valueOf(1);
+    Integer val2 = Integer.valueOf(2);
+    smg.addValue(val1);
+    smg.addValue(val2);
+    smg.addStackFrame(FUNCTION_DECLARATION);
+    SMGRegion local = smg.addLocalVariable(TYPE8, "local");
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, local, val1));
+
+    CLangSMG smgCopy = new CLangSMG(smg, true);
+    Assert.assertEquals(smg.hashCode(), smgCopy.hashCode());
+
+    int originalHash = smg.hashCode();
+    SMGEdgeHasValue hv = new SMGEdgeHasValue(TYPE8, OFFSET0, local, val2);
+    smgCopy.addNeqRelation(val1, val2);
+    smgCopy.addHasValueEdge(hv);
+    Assert.assertEquals(originalHash, smg.hashCode());
+
+    smgCopy.removeHasValueEdge(hv);
+    smg.addNeqRelation(val2, val1);
+    Assert.assertTrue(smgCopy.isIdenticalTo((ReadableSMG) smg));
+    Assert.assertEquals(smg.hashCode(), smgCopy.hashCode());
+
+    CLangSMG smgWithFrame = getNewCLangSMG64();
+    int emptyHash = smgWithFrame.hashCode();
+    smgWithFrame.addStackFrame(FUNCTION_DECLARATION);
+    Assert.assertNotEquals(emptyHash, smgWithFrame.hashCode());
+    smgWithFrame.dropStackFrame();
+    Assert.assertEquals(emptyHash, smgWithFrame.hashCode());
+  }
+
   @Test
   public final void cLangSMGaddHeapObjectTest() {
     CLangSMG smg = getNewCLangSMG64();
@@ -269,6 +345,72 @@ public class CLangSMGTest {
     Assert.assertEquals(smg.getStackFrames().peek().getVariables().size(), 0);
   }
 
+  @Test
+  public final void cLangSMGcopySharesFramesTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    smg.addStackFrame(sf.getFunctionDeclaration());
+    SMGRegion bottomLocal = smg.addLocalVariable(TYPE8, "bottom");
+    smg.addStackFrame(sf.getFunctionDeclaration());
+    smg.addLocalVariable(TYPE8, "top");
+    CLangStackFrame originalTop = smg.getStackFrames().peek();
+
+    CLangSMG copy = new CLangSMG(smg);
+    Assert.assertSame(smg.getStackFrames().peekLast(), copy.getStackFrames().peekLast());
+    Assert.assertSame(originalTop, copy.getStackFrames().peek());
+    Assert.assertTrue(copy.isIdenticalTo((ReadableSMG) smg));
+
+    copy.addLocalVariable(TYPE8, "added");
+    Assert.assertSame(smg.getStackFrames().peekLast(), copy.getStackFrames().peekLast());
+    Assert.assertNotSame(originalTop, copy.getStackFrames().peek());
+    Assert.assertTrue(copy.getStackFrames().peek().containsVariable("added"));
+    Assert.assertFalse(originalTop.containsVariable("added"));
+    Assert.assertSame(originalTop, smg.getStackFrames().peek());
+
+    smg.addLocalVariable(TYPE8, "addedToOriginal");
+    Assert.assertFalse(copy.getStackFrames().peek().containsVariable("addedToOriginal"));
+    Assert.assertEquals(sf.getFunctionDeclaration().getName(), copy.getFunctionName(bottomLocal));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public final void cLangSMGstackFramesUnmodifiableTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    smg.addStackFrame(sf.getFunctionDeclaration());
+    CLangSMG copy = new CLangSMG(smg);
+    copy.getStackFrames().pop();
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public final void cLangSMGstackFramesIteratorUnmodifiableTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    smg.addStackFrame(sf.getFunctionDeclaration());
+    Iterator<CLangStackFrame> frames = smg.getStackFrames().iterator();
+    frames.next();
+    frames.remove();
+  }
+
+  @Test
+  public final void cLangSMGgetFunctionNameTest() {
+    CFunctionDeclaration barDeclaration = new CFunctionDeclaration(FUNCTION_TYPE, "bar", FUNCTION_PARAMS);
+    CLangSMG smg = getNewCLangSMG64();
+    smg.addStackFrame(FUNCTION_DECLARATION);
+    SMGRegion fooLocal = smg.addLocalVariable(TYPE8, "local");
+    smg.addStackFrame(barDeclaration);
+    SMGRegion barLocal = smg.addLocalVariable(TYPE8, "local");
+
+    Assert.assertEquals("foo", smg.getFunctionName(fooLocal));
+    Assert.assertEquals("bar", smg.getFunctionName(barLocal));
+    Assert.assertEquals("bar", smg.getFunctionName(smg.getStackReturnObject(0)));
+
+    smg.dropStackFrame();
+    Assert.assertEquals("foo", smg.getFunctionName(fooLocal));
+    try {
+      smg.getFunctionName(barLocal);
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // expected: the frame was dropped
+    }
+  }
+
   @Test
   public final void cLangSMGgetHeapObjectsTest() {
     CLangSMG smg = getNewCLangSMG64();
@@ -307,6 +449,174 @@ public class CLangSMGTest {
     Assert.assertTrue(smg.hasMemoryLeaks());
   }
 
+  @Test
+  public final void cLangSMGpruneUnreachableTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    SMGRegion global = smg.addGlobalVariable(TYPE8, "global");
+    SMGRegion reachable = new SMGRegion(SIZE16, "reachable");
+    SMGRegion unreachable = new SMGRegion(SIZE16, "unreachable");
+    SMGRegion cycle = new SMGRegion(SIZE16, "cycle");
+    smg.addHeapObject(reachable);
+    smg.addHeapObject(unreachable);
+    smg.addHeapObject(cycle);
+
+    Integer toReachable = SMGValueFactory.getNewValue();
+    Integer toUnreachable = SMGValueFactory.getNewValue();
+    Integer toCycle = SMGValueFactory.getNewValue();
+    Integer stray = SMGValueFactory.getNewValue();
+    for (Integer value : new Integer[] {toReachable, toUnreachable, toCycle, stray}) {
+      smg.addValue(value);
+    }
+    smg.addPointsToEdge(new SMGEdgePointsTo(toReachable, reachable, OFFSET0));
+    smg.addPointsToEdge(new SMGEdgePointsTo(toUnreachable, unreachable, OFFSET0));
+    smg.addPointsToEdge(new SMGEdgePointsTo(toCycle, cycle, OFFSET0));
+
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, global, toReachable));
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, reachable, smg.getNullValue()));
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, unreachable, toCycle));
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, cycle, toUnreachable));
+
+    smg.pruneUnreachable();
+
+    Assert.assertTrue(smg.hasMemoryLeaks());
+    Assert.assertTrue(smg.getHeapObjects().contains(reachable));
+    Assert.assertFalse(smg.getHeapObjects().contains(unreachable));
+    Assert.assertFalse(smg.getHeapObjects().contains(cycle));
+    Assert.assertFalse(smg.getObjects().contains(cycle));
+    Assert.assertTrue(smg.getValues().contains(toReachable));
+    Assert.assertTrue(smg.getValues().contains(smg.getNullValue()));
+    for (Integer value : new Integer[] {toUnreachable, toCycle, stray}) {
+      Assert.assertFalse(smg.getValues().contains(value));
+      Assert.assertFalse(smg.isPointer(value));
+    }
+    final int expectedHVEdges = 2;
+    Assert.assertEquals(expectedHVEdges, smg.getHVEdges().size());
+    Assert.assertTrue(CLangSMGConsistencyVerifier.verifyCLangSMG(smg));
+  }
+
+  @Test
+  public final void cLangSMGdropStackFrameTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    SMGRegion heap = new SMGRegion(SIZE16, "heap");
+    smg.addHeapObject(heap);
+    smg.addStackFrame(FUNCTION_DECLARATION);
+    SMGRegion local1 = smg.addLocalVariable(TYPE8, "local1");
+    SMGRegion local2 = smg.addLocalVariable(TYPE8, "local2");
+
+    Integer toHeap = SMGValueFactory.getNewValue();
+    Integer toLocal = SMGValueFactory.getNewValue();
+    smg.addValue(toHeap);
+    smg.addValue(toLocal);
+    smg.addPointsToEdge(new SMGEdgePointsTo(toHeap, heap, OFFSET0));
+    smg.addPointsToEdge(new SMGEdgePointsTo(toLocal, local2, OFFSET0));
+    SMGEdgeHasValue heapField = new SMGEdgeHasValue(TYPE8, OFFSET0, heap, toHeap);
+    smg.addHasValueEdge(heapField);
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, local1, toHeap));
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, local2, toHeap));
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, SIZE8, heap, toLocal));
+
+    smg.dropStackFrame();
+
+    Assert.assertFalse(smg.getObjects().contains(local1));
+    Assert.assertFalse(smg.getObjects().contains(local2));
+    Assert.assertFalse(smg.isPointer(toLocal));
+    Set<SMGEdgeHasValue> toHeapEdges =
+        ImmutableSet.copyOf(smg.getHVEdges(new SMGEdgeHasValueFilter().filterHavingValue(toHeap)));
+    Assert.assertEquals(ImmutableSet.of(heapField), toHeapEdges);
+    Assert.assertEquals(2, smg.getHVEdges().size());
+  }
+
+  @Test
+  public final void cLangSMGincrementalLeakTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    SMGRegion global = smg.addGlobalVariable(TYPE16, "global");
+    SMGRegion heap = new SMGRegion(SIZE8, "heap");
+    smg.addHeapObject(heap);
+    Integer address = SMGValueFactory.getNewValue();
+    smg.addValue(address);
+    smg.addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0));
+    SMGEdgeHasValue first = new SMGEdgeHasValue(TYPE8, OFFSET0, global, address);
+    SMGEdgeHasValue second = new SMGEdgeHasValue(TYPE8, SIZE8, global, address);
+    smg.addHasValueEdge(first);
+    smg.addHasValueEdge(second);
+
+    smg.removeHasValueEdge(first);
+    Assert.assertFalse(smg.hasMemoryLeaks());
+
+    CLangSMG copy = new CLangSMG(smg);
+    copy.removeHasValueEdge(second);
+    Assert.assertTrue(copy.hasMemoryLeaks());
+    Assert.assertFalse(smg.hasMemoryLeaks());
+
+    // The last reference is removed, but the object gets referenced again before the commit
+    smg.beginTransaction().removeHasValueEdge(second).addHasValueEdge(first).commit();
+    Assert.assertFalse(smg.hasMemoryLeaks());
+
+    // Freed objects are not leaked
+    smg.free(address, OFFSET0, heap);
+    smg.removeHasValueEdge(first);
+    Assert.assertFalse(smg.hasMemoryLeaks());
+  }
+
+  @Test
+  public final void cLangSMGmergeValuesLeakTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    SMGRegion global = smg.addGlobalVariable(TYPE8, "global");
+    SMGRegion heap = new SMGRegion(SIZE16, "heap");
+    smg.addHeapObject(heap);
+    Integer address1 = SMGValueFactory.getNewValue();
+    Integer address2 = SMGValueFactory.getNewValue();
+    smg.addValue(address1);
+    smg.addValue(address2);
+    smg.addPointsToEdge(new SMGEdgePointsTo(address1, heap, OFFSET0));
+    smg.addPointsToEdge(new SMGEdgePointsTo(address2, heap, SIZE8));
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, global, address2));
+
+    // The field holding address2 is removed before it is added back with address1
+    smg.mergeValues(address1, address2);
+    Assert.assertFalse(smg.hasMemoryLeaks());
+  }
+
+  @Test
+  public final void cLangSMGdropStackFrameLeakTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    SMGRegion heap = new SMGRegion(SIZE8, "heap");
+    smg.addHeapObject(heap);
+    Integer address = SMGValueFactory.getNewValue();
+    smg.addValue(address);
+    smg.addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0));
+
+    smg.addStackFrame(FUNCTION_DECLARATION);
+    SMGRegion local = smg.addLocalVariable(TYPE8, "local");
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, local, address));
+    smg.addStackFrame(FUNCTION_DECLARATION);
+    smg.dropStackFrame();
+    Assert.assertFalse(smg.hasMemoryLeaks());
+
+    smg.dropStackFrame();
+    Assert.assertTrue(smg.hasMemoryLeaks());
+  }
+
+  @Test
+  public final void cLangSMGleakedCycleTest() {
+    CLangSMG smg = getNewCLangSMG64();
+    SMGRegion global = smg.addGlobalVariable(TYPE8, "global");
+    SMGRegion heap = new SMGRegion(SIZE8, "heap");
+    smg.addHeapObject(heap);
+    Integer address = SMGValueFactory.getNewValue();
+    smg.addValue(address);
+    smg.addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0));
+    SMGEdgeHasValue fromGlobal = new SMGEdgeHasValue(TYPE8, OFFSET0, global, address);
+    smg.addHasValueEdge(fromGlobal);
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, heap, address));
+
+    // The object still points to itself, which only the full pruning recognizes
+    smg.removeHasValueEdge(fromGlobal);
+    Assert.assertFalse(smg.hasMemoryLeaks());
+    smg.pruneUnreachable();
+    Assert.assertTrue(smg.hasMemoryLeaks());
+  }
+
   @Test(expected = IllegalStateException.class)
   public final void consistencyViolationDisjunctnessTest1() {
     CLangSMG smg = getNewCLangSMG64();
@@ -100,6 +100,21 @@ public class CLangStackFrameTest {
     Assert.assertEquals(2, objects.size());
   }
 
+  @Test
+  public final void cLangStackFrameCopyIndependenceTest() {
+    sf.addStackVariable("fooVar", new SMGRegion(SIZE8, "fooVarObject"));
+    Set<SMGObject> objects = sf.getAllObjects();
+    CLangStackFrame sfCopy = new CLangStackFrame(sf);
+
+    sfCopy.addStackVariable("barVar", new SMGRegion(SIZE8, "barVarObject"));
+    Assert.assertTrue(sfCopy.containsVariable("barVar"));
+    Assert.assertFalse(sf.containsVariable("barVar"));
+    Assert.assertEquals(2, sf.getAllObjects().size());
+    final int expectedCopyObjects = 3;
+    Assert.assertEquals(expectedCopyObjects, sfCopy.getAllObjects().size());
+    Assert.assertSame(objects, sf.getAllObjects());
+  }
+
   //TODO: Test void functions
   @Test
 	public final void cLangFrameReturnValueTest() {
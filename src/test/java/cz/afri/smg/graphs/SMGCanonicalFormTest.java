@@ -0,0 +1,186 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.graphs;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import cz.afri.smg.objects.SMGRegion;
+import cz.afri.smg.types.CFunctionDeclaration;
+import cz.afri.smg.types.CFunctionType;
+import cz.afri.smg.types.CParameterDeclaration;
+import cz.afri.smg.types.CPointerType;
+import cz.afri.smg.types.CType;
+
+public class SMGCanonicalFormTest {
+  private static final CFunctionDeclaration FUNCTION_DECLARATION =
+      new CFunctionDeclaration(CFunctionType.createSimpleFunctionType(CType.getIntType()), "foo",
+                               ImmutableList.<CParameterDeclaration>of());
+  private static final int SIZE8 = 8;
+  private static final int SIZE16 = 16;
+  private static final int OFFSET0 = 0;
+  private static final int OFFSET8 = 8;
+
+  /**
+   * Builds an SMG with a global pointing to a heap list of two nodes, and a
+   * local holding an explicit value. Values are allocated by the factory, so
+   * each call numbers them differently.
+   */
+  private static CLangSMG buildSMG(final boolean pSecondNodeFirst) {
+    CLangSMG smg = new CLangSMG();
+    SMGRegion global = smg.addGlobalVariable(CType.getPointerType(), "head");
+    smg.addStackFrame(FUNCTION_DECLARATION);
+    SMGRegion local = smg.addLocalVariable(CType.getIntType(), "local");
+
+    SMGRegion node1 = new SMGRegion(SIZE16, "node1");
+    SMGRegion node2 = new SMGRegion(SIZE16, "node2");
+    Integer address2 = SMGValueFactory.getNewValue();
+    Integer address1 = SMGValueFactory.getNewValue();
+    Integer explicit = SMGValueFactory.getNewValue();
+    if (pSecondNodeFirst) {
+      smg.addHeapObject(node2);
+      smg.addHeapObject(node1);
+    } else {
+      smg.addHeapObject(node1);
+      smg.addHeapObject(node2);
+    }
+    for (Integer value : new Integer[] {address1, address2, explicit}) {
+      smg.addValue(value);
+    }
+    smg.addPointsToEdge(new SMGEdgePointsTo(address1, node1, OFFSET0));
+    smg.addPointsToEdge(new SMGEdgePointsTo(address2, node2, OFFSET0));
+
+    smg.addHasValueEdge(new SMGEdgeHasValue(CType.getPointerType(), OFFSET0, global, address1));
+    smg.addHasValueEdge(new SMGEdgeHasValue(CType.getPointerType(), OFFSET0, node1, address2));
+    smg.addHasValueEdge(new SMGEdgeHasValue(CType.getPointerType(), OFFSET0, node2, smg.getNullValue()));
+    smg.addHasValueEdge(new SMGEdgeHasValue(SIZE8, OFFSET8, node1, explicit));
+    smg.addHasValueEdge(new SMGEdgeHasValue(CType.getIntType(), OFFSET0, local, explicit));
+    smg.putExplicit(SMGValues.SMGKnownSymValue.valueOf(explicit), SMGValues.SMGKnownExpValue.ONE);
+    smg.addNeqRelation(address1, address2);
+    return smg;
+  }
+
+  @Test
+  public final void isomorphicSMGsTest() {
+    CLangSMG smg1 = buildSMG(false);
+    CLangSMG smg2 = buildSMG(true);
+    Assert.assertFalse(smg1.isIdenticalTo((ReadableSMG) smg2));
+
+    SMGCanonicalForm form1 = SMGCanonicalForm.of(smg1);
+    SMGCanonicalForm form2 = SMGCanonicalForm.of(smg2);
+    Assert.assertEquals(form1, form2);
+    Assert.assertEquals(form1.getFingerprint(), form2.getFingerprint());
+    Assert.assertEquals(form1.hashCode(), form2.hashCode());
+  }
+
+  @Test
+  public final void differentSMGsTest() {
+    CLangSMG smg1 = buildSMG(false);
+    SMGCanonicalForm form = SMGCanonicalForm.of(smg1);
+
+    CLangSMG smg2 = buildSMG(false);
+    smg2.putExplicit(SMGValues.SMGKnownSymValue.valueOf(SMGValueFactory.getNewValue()),
+                     SMGValues.SMGKnownExpValue.ONE);
+    Assert.assertEquals(form, SMGCanonicalForm.of(smg2));
+
+    SMGRegion local = smg2.getObjectForVisibleVariable("local");
+    smg2.setValidity(local, false);
+    Assert.assertNotEquals(form, SMGCanonicalForm.of(smg2));
+
+    CLangSMG smg3 = buildSMG(false);
+    smg3.addHeapObject(new SMGRegion(SIZE8, "garbage"));
+    Assert.assertNotEquals(form, SMGCanonicalForm.of(smg3));
+
+    CLangSMG smg4 = buildSMG(false);
+    Integer value = SMGValueFactory.getNewValue();
+    smg4.addValue(value);
+    smg4.addNeqRelation(value, smg4.getNullValue());
+    smg4.addHasValueEdge(new SMGEdgeHasValue(SIZE8, OFFSET8, smg4.getObjectForVisibleVariable("head"), value));
+    SMGCanonicalForm form4 = SMGCanonicalForm.of(smg4);
+    Assert.assertNotEquals(form, form4);
+    smg4.addNeqRelation(value, smg4.getNullValue());
+    Assert.assertEquals(form4, SMGCanonicalForm.of(smg4));
+  }
+
+  @Test
+  public final void cachedFormTest() {
+    CLangSMG smg = buildSMG(false);
+    SMGCanonicalForm form = SMGCanonicalForm.of(smg);
+    Assert.assertSame(form, SMGCanonicalForm.of(smg));
+    Assert.assertSame(form, SMGCanonicalForm.of(new CLangSMG(smg)));
+    Assert.assertSame(form, SMGCanonicalForm.of(smg));
+  }
+
+  @Test
+  public final void modifiedSMGTest() {
+    CLangSMG smg = buildSMG(false);
+    SMGCanonicalForm form = SMGCanonicalForm.of(smg);
+
+    SMGRegion local = smg.getObjectForVisibleVariable("local");
+    smg.setValidity(local, false);
+    SMGCanonicalForm invalidLocalForm = SMGCanonicalForm.of(smg);
+    Assert.assertNotEquals(form, invalidLocalForm);
+
+    smg.setValidity(local, true);
+    Assert.assertEquals(form, SMGCanonicalForm.of(smg));
+
+    smg.addStackFrame(FUNCTION_DECLARATION);
+    SMGCanonicalForm twoFramesForm = SMGCanonicalForm.of(smg);
+    Assert.assertNotEquals(form, twoFramesForm);
+
+    smg.dropStackFrame();
+    Assert.assertEquals(form, SMGCanonicalForm.of(smg));
+
+    smg.setMemoryLeak();
+    Assert.assertNotEquals(form, SMGCanonicalForm.of(smg));
+  }
+
+  @Test
+  public final void modifiedCopyTest() {
+    CLangSMG smg = buildSMG(false);
+    SMGCanonicalForm form = SMGCanonicalForm.of(smg);
+
+    CLangSMG copy = new CLangSMG(smg);
+    copy.addGlobalVariable(CType.getIntType(), "other");
+    Assert.assertNotEquals(form, SMGCanonicalForm.of(copy));
+    Assert.assertSame(form, SMGCanonicalForm.of(smg));
+  }
+
+  private static CLangSMG buildSMGWithField(final CType pFieldType) {
+    CLangSMG smg = new CLangSMG();
+    SMGRegion global = smg.addGlobalVariable(CType.createTypeWithLength(SIZE8), "global");
+    Integer value = SMGValueFactory.getNewValue();
+    smg.addValue(value);
+    smg.addHasValueEdge(new SMGEdgeHasValue(pFieldType, OFFSET0, global, value));
+    return smg;
+  }
+
+  @Test
+  public final void differentFieldTypesTest() {
+    SMGCanonicalForm pointerForm = SMGCanonicalForm.of(buildSMGWithField(CPointerType.getVoidPointer()));
+    SMGCanonicalForm intForm = SMGCanonicalForm.of(buildSMGWithField(CType.createTypeWithLength(SIZE8)));
+    Assert.assertNotEquals(pointerForm, intForm);
+    Assert.assertEquals(pointerForm, SMGCanonicalForm.of(buildSMGWithField(CPointerType.getVoidPointer())));
+  }
+}
@@ -78,6 +78,20 @@ public class SMGEdgeHasValueTest {
     Assert.assertTrue(hv2.isConsistentWith(hv4));
   }
 
+  @Test
+  public final void testSizeConstructorInternsType() {
+    SMGObject obj1 = new SMGRegion(SIZE8, "object");
+    Integer val1 = SMGValueFactory.getNewValue();
+    Integer val2 = SMGValueFactory.getNewValue();
+
+    SMGEdgeHasValue hv1 = new SMGEdgeHasValue(LENGTH4, OFFSET4, obj1, val1);
+    SMGEdgeHasValue hv2 = new SMGEdgeHasValue(LENGTH4, OFFSET4, obj1, val2);
+
+    Assert.assertSame(MOCKTYPE4, hv1.getType());
+    Assert.assertSame(hv1.getType(), hv2.getType());
+    Assert.assertFalse(hv1.isConsistentWith(hv2));
+  }
+
   @Test
 	public final void testOverlapsWith() {
     SMGObject object = new SMGRegion(SIZE12, "object");
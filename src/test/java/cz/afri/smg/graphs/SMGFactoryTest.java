@@ -0,0 +1,82 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.graphs;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import cz.afri.smg.graphs.SMGFactory.CopyMode;
+import cz.afri.smg.objects.SMGRegion;
+import cz.afri.smg.types.CType;
+
+public class SMGFactoryTest {
+  private static final int SIZE8 = 8;
+  private static final int OFFSET0 = 0;
+  private static final CType TYPE8 = CType.createTypeWithLength(SIZE8);
+
+  private static WritableSMG createSMG() {
+    WritableSMG smg = SMGFactory.createWritableSMG();
+    SMGRegion global = smg.addGlobalVariable(TYPE8, "global");
+    Integer value = SMGValueFactory.getNewValue();
+    smg.addValue(value);
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, global, value));
+    return smg;
+  }
+
+  private static void checkCopy(final CopyMode pMode) {
+    WritableSMG smg = createSMG();
+    WritableSMG copy = SMGFactory.createWritableCopy(smg, pMode);
+    Assert.assertTrue(copy.isIdenticalTo(smg));
+
+    Integer copyValue = SMGValueFactory.getNewValue();
+    copy.addValue(copyValue);
+    copy.addNeqRelation(copyValue, copy.getNullValue());
+    SMGRegion copyHeap = new SMGRegion(SIZE8, "copyHeap");
+    copy.addHeapObject(copyHeap);
+
+    Integer value = SMGValueFactory.getNewValue();
+    smg.addValue(value);
+    smg.addGlobalVariable(TYPE8, "other");
+
+    Assert.assertFalse(smg.getValues().contains(copyValue));
+    Assert.assertFalse(smg.haveNeqRelation(copyValue, smg.getNullValue()));
+    Assert.assertFalse(smg.getHeapObjects().contains(copyHeap));
+    Assert.assertFalse(copy.getValues().contains(value));
+    Assert.assertFalse(copy.getGlobalObjects().containsKey("other"));
+    Assert.assertTrue(copy.haveNeqRelation(copyValue, copy.getNullValue()));
+  }
+
+  @Test
+  public final void eagerCopyTest() {
+    checkCopy(CopyMode.EAGER);
+  }
+
+  @Test
+  public final void copyOnWriteTest() {
+    checkCopy(CopyMode.COPY_ON_WRITE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void nonCLangSMGCopyTest() {
+    SMGFactory.createWritableCopy(null, CopyMode.EAGER);
+  }
+}
@@ -133,6 +133,66 @@ public class SMGTest {
     Assert.assertTrue(bs.get(offset7));
   }
 
+  @Test
+  public final void getNullBytesForObjectAfterRemovalTest() {
+    final int offset2 = 2;
+    final int offset5 = 5;
+    emptySmg.addObject(obj1);
+    SMGEdgeHasValue hvAt0 = new SMGEdgeHasValue(mockType, OFFSET0, obj1, emptySmg.getNullValue());
+    SMGEdgeHasValue hvAt2 = new SMGEdgeHasValue(mockType, offset2, obj1, emptySmg.getNullValue());
+    emptySmg.addHasValueEdge(hvAt0);
+    emptySmg.addHasValueEdge(hvAt2);
+
+    BitSet bs = emptySmg.getNullBytesForObject(obj1);
+    Assert.assertEquals(0, bs.nextSetBit(0));
+    Assert.assertEquals(offset2 + SIZE4, bs.nextClearBit(0));
+
+    bs.clear();
+    Assert.assertTrue(emptySmg.isCoveredByNullifiedBlocks(hvAt0));
+
+    emptySmg.removeHasValueEdge(hvAt0);
+    bs = emptySmg.getNullBytesForObject(obj1);
+    Assert.assertFalse(bs.get(1));
+    Assert.assertTrue(bs.get(offset2));
+    Assert.assertTrue(bs.get(offset5));
+    Assert.assertFalse(bs.get(offset2 + SIZE4));
+
+    emptySmg.removeHasValueEdge(hvAt2);
+    Assert.assertTrue(emptySmg.getNullBytesForObject(obj1).isEmpty());
+  }
+
+  @Test
+  public final void copyIndependenceTest() {
+    final int offset2 = 2;
+    emptySmg.addObject(obj1);
+    emptySmg.addValue(val1);
+    SMGEdgeHasValue hvAt0 = new SMGEdgeHasValue(mockType, OFFSET0, obj1, emptySmg.getNullValue());
+    SMGEdgeHasValue hvAt2 = new SMGEdgeHasValue(mockType, offset2, obj1, val1.intValue());
+    SMGEdgePointsTo pt = new SMGEdgePointsTo(val1, obj1, OFFSET0);
+    emptySmg.addHasValueEdge(hvAt0);
+    emptySmg.addPointsToEdge(pt);
+
+    SMG copy = new SMG(emptySmg);
+    copy.addHasValueEdge(hvAt2);
+    copy.removeHasValueEdge(hvAt0);
+    copy.removePointsToEdge(val1);
+
+    Assert.assertTrue(emptySmg.getHVEdges().contains(hvAt0));
+    Assert.assertFalse(emptySmg.getHVEdges().contains(hvAt2));
+    Assert.assertTrue(emptySmg.isCoveredByNullifiedBlocks(hvAt0));
+    Assert.assertEquals(pt, emptySmg.getPointer(val1));
+    Assert.assertTrue(emptySmg.getPTEdgesToObject(obj1).contains(pt));
+
+    Assert.assertFalse(copy.getHVEdges().contains(hvAt0));
+    Assert.assertTrue(copy.getHVEdges().contains(hvAt2));
+    Assert.assertFalse(copy.isCoveredByNullifiedBlocks(hvAt0));
+    Assert.assertTrue(copy.getPTEdgesToObject(obj1).isEmpty());
+
+    emptySmg.removeObjectAndEdges(obj1);
+    Assert.assertTrue(copy.getObjects().contains(obj1));
+    Assert.assertEquals(hvAt2, Iterables.getOnlyElement(copy.getHVEdgesOverlapping(obj1, offset2, offset2 + 1)));
+  }
+
   @Test
 	public final void replaceHVSetTest() {
     SMGEdgeHasValue hv = new SMGEdgeHasValue(mockType, 2, obj1, val1.intValue());
@@ -456,6 +516,64 @@ public class SMGTest {
                                          hv2has2at0));
   }
 
+  @Test
+  public final void getHVEdgesFilteredAfterModificationTest() {
+    SMG smgCopy = new SMG(smg);
+
+    smg.removeHasValueEdge(hv2has2at0);
+    Assert.assertEquals(1, Iterables.size(smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2))));
+    Assert.assertEquals(2, Iterables.size(smgCopy.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2))));
+
+    smg.removeObjectAndEdges(obj2);
+    Assert.assertFalse(smg.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2)).iterator().hasNext());
+
+    SMGEdgeHasValue hv1has2at0 = new SMGEdgeHasValue(mockType, OFFSET0, obj1, val2);
+    Set<SMGEdgeHasValue> hvSet = new HashSet<>();
+    hvSet.add(hv1has2at0);
+    smgCopy.replaceHVSet(hvSet);
+    Assert.assertFalse(smgCopy.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2)).iterator().hasNext());
+    Assert.assertTrue(Iterables.contains(smgCopy.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj1)), hv1has2at0));
+
+    smgCopy.mergeValues(val1, val2);
+    SMGEdgeHasValueFilter filter = SMGEdgeHasValueFilter.objectFilter(obj1).filterHavingValue(val1);
+    Assert.assertEquals(1, Iterables.size(smgCopy.getHVEdges(filter)));
+  }
+
+  @Test
+  public final void getHVEdgesByValueTest() {
+    SMGEdgeHasValueFilter hasVal1 = new SMGEdgeHasValueFilter().filterHavingValue(val1);
+    SMGEdgeHasValueFilter hasVal2 = new SMGEdgeHasValueFilter().filterHavingValue(val2);
+    Assert.assertEquals(1, Iterables.size(smg.getHVEdges(hasVal1)));
+    Assert.assertTrue(Iterables.contains(smg.getHVEdges(hasVal1), hv2has1at4));
+    Assert.assertEquals(1, Iterables.size(smg.getHVEdges(new SMGEdgeHasValueFilter().filterNotHavingValue(val1))));
+
+    smg.mergeValues(val1, val2);
+    Assert.assertEquals(2, Iterables.size(smg.getHVEdges(hasVal1)));
+    Assert.assertFalse(smg.getHVEdges(hasVal2).iterator().hasNext());
+
+    smg.removeObjectAndEdges(obj2);
+    Assert.assertFalse(smg.getHVEdges(hasVal1).iterator().hasNext());
+  }
+
+  @Test
+  public final void getHVEdgesOverlappingTest() {
+    final int offset2 = 2;
+    final int offset6 = 6;
+    Assert.assertEquals(0, Iterables.size(smg.getHVEdgesOverlapping(obj1, OFFSET0, SIZE8)));
+    Assert.assertEquals(2, Iterables.size(smg.getHVEdgesOverlapping(obj2, OFFSET0, SIZE8)));
+    Assert.assertEquals(2, Iterables.size(smg.getHVEdgesOverlapping(obj2, offset2, offset6)));
+
+    Iterable<SMGEdgeHasValue> overlapping = smg.getHVEdgesOverlapping(obj2, offset6, SIZE8);
+    Assert.assertEquals(1, Iterables.size(overlapping));
+    Assert.assertTrue(Iterables.contains(overlapping, hv2has1at4));
+
+    overlapping = smg.getHVEdgesOverlapping(obj2, OFFSET0, OFFSET4);
+    Assert.assertEquals(1, Iterables.size(overlapping));
+    Assert.assertTrue(Iterables.contains(overlapping, hv2has2at0));
+
+    Assert.assertEquals(0, Iterables.size(smg.getHVEdgesOverlapping(obj2, SIZE8, SIZE10)));
+  }
+
   @Test
 	public final void getPTEdgesTest() {
     HashSet<SMGEdgePointsTo> set = new HashSet<>();
@@ -464,6 +582,25 @@ public class SMGTest {
     Assert.assertTrue(smg.getPTEdges().containsAll(set));
   }
 
+  @Test
+  public final void getPTEdgesToObjectTest() {
+    Assert.assertEquals(1, smg.getPTEdgesToObject(obj1).size());
+    Assert.assertTrue(smg.getPTEdgesToObject(obj1).contains(pt1to1));
+    Assert.assertTrue(smg.getPTEdgesToObject(obj2).isEmpty());
+    Assert.assertEquals(val1, smg.getAddress(obj1, OFFSET0));
+    Assert.assertNull(smg.getAddress(obj1, OFFSET4));
+
+    SMGEdgePointsTo pt1to2 = new SMGEdgePointsTo(val1, obj2, OFFSET4);
+    smg.addPointsToEdge(pt1to2);
+    Assert.assertTrue(smg.getPTEdgesToObject(obj1).isEmpty());
+    Assert.assertNull(smg.getAddress(obj1, OFFSET0));
+    Assert.assertEquals(val1, smg.getAddress(obj2, OFFSET4));
+
+    smg.removePointsToEdge(val1);
+    Assert.assertTrue(smg.getPTEdgesToObject(obj2).isEmpty());
+    Assert.assertNull(smg.getAddress(obj2, OFFSET4));
+  }
+
   @Test
 	public final void getObjectPointedByTest() {
     Assert.assertEquals(obj1, smg.getObjectPointedBy(val1));
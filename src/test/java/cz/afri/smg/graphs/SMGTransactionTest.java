@@ -0,0 +1,214 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.graphs;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.afri.smg.graphs.SMGValues.SMGKnownExpValue;
+import cz.afri.smg.graphs.SMGValues.SMGKnownSymValue;
+import cz.afri.smg.objects.SMGRegion;
+import cz.afri.smg.types.CType;
+
+public class SMGTransactionTest {
+  private static final int SIZE8 = 8;
+  private static final int SIZE16 = 16;
+  private static final int OFFSET0 = 0;
+  private static final int OFFSET8 = 8;
+  private static final int EDIT_COUNT = 4;
+  private static final CType TYPE8 = CType.createTypeWithLength(SIZE8);
+
+  private CLangSMG smg;
+  private SMGRegion global;
+  private SMGRegion heap;
+  private Integer address;
+  private SMGEdgeHasValue hv;
+
+  @Before
+  public final void setUp() {
+    CLangSMG.setPerformChecks(true);
+    smg = new CLangSMG();
+    global = smg.addGlobalVariable(CType.createTypeWithLength(SIZE16), "global");
+    heap = new SMGRegion(SIZE8, "heap");
+    address = SMGValueFactory.getNewValue();
+    hv = new SMGEdgeHasValue(TYPE8, OFFSET0, global, address);
+  }
+
+  @Test
+  public final void deferredEditsTest() {
+    SMGTransaction transaction = smg.beginTransaction();
+    transaction.addHeapObject(heap).addValue(address).addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0));
+    transaction.addHasValueEdge(hv);
+    Assert.assertEquals(EDIT_COUNT, transaction.size());
+
+    Assert.assertFalse(smg.getHeapObjects().contains(heap));
+    Assert.assertFalse(smg.getValues().contains(address));
+
+    transaction.commit();
+    Assert.assertTrue(smg.getHeapObjects().contains(heap));
+    Assert.assertTrue(smg.getValues().contains(address));
+    Assert.assertEquals(heap, smg.getPointer(address).getObject());
+    Assert.assertTrue(smg.getHVEdges().contains(hv));
+    Assert.assertFalse(smg.hasMemoryLeaks());
+  }
+
+  @Test
+  public final void editWhileIteratingTest() {
+    SMGRegion other = new SMGRegion(SIZE8, "other");
+    smg.beginTransaction().addHeapObject(heap).addHeapObject(other).addValue(address)
+        .addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0)).addHasValueEdge(hv).commit();
+
+    SMGTransaction transaction = smg.beginTransaction();
+    for (SMGEdgePointsTo pt : smg.getPTEdgesToObject(heap)) {
+      transaction.removePointsToEdge(pt.getValue());
+      transaction.addPointsToEdge(new SMGEdgePointsTo(pt.getValue(), other, pt.getOffset()));
+    }
+    transaction.removeHeapObject(heap);
+    transaction.commit();
+
+    Assert.assertEquals(other, smg.getPointer(address).getObject());
+    Assert.assertFalse(smg.getHeapObjects().contains(heap));
+  }
+
+  @Test
+  public final void leakDetectedAtCommitTest() {
+    smg.beginTransaction().addHeapObject(heap).addValue(address)
+        .addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0)).addHasValueEdge(hv).commit();
+
+    // The reference is removed and added back within one transaction
+    smg.beginTransaction().removeHasValueEdge(hv).addHasValueEdge(hv).commit();
+    Assert.assertFalse(smg.hasMemoryLeaks());
+
+    smg.beginTransaction().removeHasValueEdge(hv).commit();
+    Assert.assertTrue(smg.hasMemoryLeaks());
+  }
+
+  @Test
+  public final void failedCommitRollbackTest() {
+    CLangSMG original = new CLangSMG(smg);
+    SMGTransaction transaction = smg.beginTransaction();
+    transaction.addHeapObject(heap).addValue(address).addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0));
+    transaction.addHasValueEdge(hv);
+    // Global objects cannot be removed as heap objects
+    transaction.removeHeapObject(global);
+    try {
+      transaction.commit();
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    Assert.assertTrue(smg.isIdenticalTo((ReadableSMG) original));
+    Assert.assertFalse(smg.getHeapObjects().contains(heap));
+    Assert.assertFalse(smg.getValues().contains(address));
+    Assert.assertTrue(smg.getHVEdges().isEmpty());
+
+    // The SMG stays usable after the rollback
+    smg.beginTransaction().addHeapObject(heap).commit();
+    Assert.assertTrue(smg.getHeapObjects().contains(heap));
+    Assert.assertFalse(original.getHeapObjects().contains(heap));
+  }
+
+  @Test
+  public final void rollbackOfAllEditsTest() {
+    SMGRegion heap2 = new SMGRegion(SIZE8, "heap2");
+    Integer address2 = SMGValueFactory.getNewValue();
+    Integer other = SMGValueFactory.getNewValue();
+    SMGEdgeHasValue otherHV = new SMGEdgeHasValue(TYPE8, OFFSET8, global, other);
+    smg.addHeapObject(heap);
+    smg.addHeapObject(heap2);
+    smg.addValue(address);
+    smg.addValue(address2);
+    smg.addValue(other);
+    smg.addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0));
+    smg.addPointsToEdge(new SMGEdgePointsTo(address2, heap2, OFFSET0));
+    smg.addHasValueEdge(hv);
+    smg.addHasValueEdge(otherHV);
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, heap, address2));
+    smg.addNeqRelation(address, other);
+    smg.putExplicit(SMGKnownSymValue.valueOf(other), SMGKnownExpValue.ONE);
+    CLangSMG original = new CLangSMG(smg);
+    int originalHash = smg.hashCode();
+
+    SMGTransaction transaction = smg.beginTransaction();
+    transaction.removeHasValueEdge(hv).removeHeapObject(heap).mergeValues(address2, other);
+    transaction.setValidity(heap2, false).addNeqRelation(address2, smg.getNullValue());
+    transaction.clearExplicit(SMGKnownSymValue.valueOf(address2)).removePointsToEdge(address2);
+    transaction.addPointsToEdge(new SMGEdgePointsTo(address, heap2, OFFSET0)).removeValue(address);
+    transaction.putExplicit(SMGKnownSymValue.valueOf(address), SMGKnownExpValue.ZERO).addHasValueEdge(hv);
+    // Global objects cannot be removed as heap objects
+    transaction.removeHeapObject(global);
+    try {
+      transaction.commit();
+      Assert.fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    Assert.assertTrue(smg.isIdenticalTo((ReadableSMG) original));
+    Assert.assertEquals(originalHash, smg.hashCode());
+    Assert.assertEquals(original.getHeapObjects(), smg.getHeapObjects());
+    Assert.assertEquals(SMGCanonicalForm.of(original), SMGCanonicalForm.of(smg));
+    Assert.assertFalse(smg.hasMemoryLeaks());
+
+    // The leak candidates of the failed commit are forgotten
+    smg.beginTransaction().removeHasValueEdge(otherHV).commit();
+    Assert.assertFalse(smg.hasMemoryLeaks());
+  }
+
+  @Test
+  public final void batchedRemovalTest() {
+    SMGRegion heap2 = new SMGRegion(SIZE8, "heap2");
+    smg.addHeapObject(heap);
+    smg.addHeapObject(heap2);
+    smg.addValue(address);
+    smg.addPointsToEdge(new SMGEdgePointsTo(address, heap, OFFSET0));
+    smg.addHasValueEdge(new SMGEdgeHasValue(TYPE8, OFFSET0, heap2, address));
+
+    SMGTransaction transaction = smg.beginTransaction();
+    transaction.removeHeapObject(heap).removeHeapObject(heap2);
+    Assert.assertEquals(2, transaction.size());
+    transaction.commit();
+
+    Assert.assertFalse(smg.getObjects().contains(heap));
+    Assert.assertFalse(smg.getObjects().contains(heap2));
+    Assert.assertFalse(smg.isPointer(address));
+    Assert.assertTrue(smg.getHVEdges().isEmpty());
+    Assert.assertFalse(smg.hasMemoryLeaks());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public final void doubleCommitTest() {
+    SMGTransaction transaction = smg.beginTransaction();
+    transaction.addHeapObject(heap);
+    transaction.commit();
+    transaction.commit();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public final void queueAfterCommitTest() {
+    SMGTransaction transaction = smg.beginTransaction();
+    transaction.commit();
+    transaction.addHeapObject(heap);
+  }
+}
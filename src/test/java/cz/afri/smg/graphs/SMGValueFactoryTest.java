@@ -0,0 +1,85 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.graphs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SMGValueFactoryTest {
+  private static final int THREADS = 4;
+  private static final int VALUES_PER_THREAD = 5000;
+
+  @Test
+  public final void sequentialValuesTest() {
+    SMGValueFactory.reset();
+    Integer first = SMGValueFactory.getNewValue();
+    Integer second = SMGValueFactory.getNewValue();
+    Assert.assertEquals(1, first.intValue());
+    Assert.assertEquals(2, second.intValue());
+
+    SMGValueFactory.reset();
+    Assert.assertEquals(first, SMGValueFactory.getNewValue());
+  }
+
+  @Test
+  public final void concurrentValuesTest() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    List<Future<List<Integer>>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < THREADS; i++) {
+        results.add(executor.submit(new Callable<List<Integer>>() {
+          @Override
+          public List<Integer> call() {
+            List<Integer> values = new ArrayList<>();
+            for (int j = 0; j < VALUES_PER_THREAD; j++) {
+              values.add(SMGValueFactory.getNewValue());
+            }
+            return values;
+          }
+        }));
+      }
+
+      Set<Integer> allValues = new HashSet<>();
+      for (Future<List<Integer>> result : results) {
+        List<Integer> values = result.get();
+        List<Integer> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        Assert.assertEquals(sorted, values);
+        allValues.addAll(values);
+      }
+      Assert.assertEquals(THREADS * VALUES_PER_THREAD, allValues.size());
+      Assert.assertFalse(allValues.contains(SMG.NULL_ADDRESS));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.join;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.afri.smg.graphs.SMGEdgeHasValue;
+import cz.afri.smg.graphs.SMGFactory;
+import cz.afri.smg.graphs.SMGValueFactory;
+import cz.afri.smg.graphs.SMGValues.SMGKnownExpValue;
+import cz.afri.smg.graphs.SMGValues.SMGKnownSymValue;
+import cz.afri.smg.graphs.WritableSMG;
+import cz.afri.smg.objects.SMGRegion;
+import cz.afri.smg.types.CType;
+
+public class SMGEntailmentTest {
+  private static final int SIZE4 = 4;
+  private static final int SIZE8 = 8;
+  private static final CType TYPE8 = CType.createTypeWithLength(SIZE8);
+
+  private WritableSMG smg1;
+  private WritableSMG smg2;
+
+  @Before
+  public final void setUp() {
+    smg1 = SMGFactory.createWritableSMG();
+    smg2 = SMGFactory.createWritableSMG();
+  }
+
+  private static void addGlobal(final WritableSMG pSMG, final String pVarName, final SMGKnownExpValue pExplicit) {
+    SMGRegion global = pSMG.addGlobalVariable(TYPE8, pVarName);
+    Integer value = SMGValueFactory.getNewValue();
+    pSMG.addValue(value);
+    pSMG.addHasValueEdge(new SMGEdgeHasValue(SIZE4, 0, global, value));
+    if (pExplicit != null) {
+      pSMG.putExplicit(SMGKnownSymValue.valueOf(value), pExplicit);
+    }
+  }
+
+  private void assertSameStatusAsJoin(final SMGEntailment pEntailment) {
+    SMGJoin join = new SMGJoin(smg1, smg2);
+    if (join.isDefined()) {
+      Assert.assertEquals(join.getStatus(), pEntailment.getStatus());
+    } else {
+      Assert.assertEquals(SMGJoinStatus.INCOMPARABLE, pEntailment.getStatus());
+    }
+  }
+
+  @Test
+  public final void equalTest() {
+    addGlobal(smg1, "a", SMGKnownExpValue.ONE);
+    addGlobal(smg2, "a", SMGKnownExpValue.ONE);
+    SMGEntailment entailment = new SMGEntailment(smg1, smg2);
+    Assert.assertEquals(SMGJoinStatus.EQUAL, entailment.getStatus());
+    Assert.assertTrue(entailment.isEntailed());
+    assertSameStatusAsJoin(entailment);
+  }
+
+  @Test
+  public final void leftEntailTest() {
+    addGlobal(smg1, "a", null);
+    addGlobal(smg2, "a", SMGKnownExpValue.ONE);
+    SMGEntailment entailment = new SMGEntailment(smg1, smg2);
+    Assert.assertEquals(SMGJoinStatus.LEFT_ENTAIL, entailment.getStatus());
+    Assert.assertTrue(entailment.isEntailed());
+    assertSameStatusAsJoin(entailment);
+  }
+
+  @Test
+  public final void rightEntailTest() {
+    addGlobal(smg1, "a", SMGKnownExpValue.ONE);
+    addGlobal(smg2, "a", null);
+    SMGEntailment entailment = new SMGEntailment(smg1, smg2);
+    Assert.assertEquals(SMGJoinStatus.RIGHT_ENTAIL, entailment.getStatus());
+    Assert.assertFalse(entailment.isEntailed());
+    assertSameStatusAsJoin(entailment);
+  }
+
+  @Test
+  public final void incomparableTest() {
+    addGlobal(smg1, "a", null);
+    addGlobal(smg2, "a", SMGKnownExpValue.ONE);
+    addGlobal(smg1, "b", SMGKnownExpValue.ONE);
+    addGlobal(smg2, "b", null);
+    SMGEntailment entailment = new SMGEntailment(smg1, smg2);
+    Assert.assertEquals(SMGJoinStatus.INCOMPARABLE, entailment.getStatus());
+    Assert.assertFalse(entailment.isEntailed());
+    assertSameStatusAsJoin(entailment);
+  }
+
+  @Test
+  public final void unjoinableTest() {
+    addGlobal(smg1, "a", null);
+    addGlobal(smg2, "b", null);
+    SMGEntailment entailment = new SMGEntailment(smg1, smg2);
+    Assert.assertEquals(SMGJoinStatus.INCOMPARABLE, entailment.getStatus());
+    Assert.assertFalse(entailment.isEntailed());
+  }
+
+  @Test
+  public final void checkOnlyJoinTest() {
+    addGlobal(smg1, "a", SMGKnownExpValue.ONE);
+    addGlobal(smg2, "a", SMGKnownExpValue.ONE);
+    SMGJoin join = new SMGJoin(smg1, smg2, true);
+    Assert.assertTrue(join.isDefined());
+    Assert.assertFalse(join.getJointSMG().getHVEdges().iterator().hasNext());
+  }
+}
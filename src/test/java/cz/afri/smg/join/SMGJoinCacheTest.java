@@ -0,0 +1,187 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.join;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.afri.smg.graphs.SMGCanonicalForm;
+import cz.afri.smg.graphs.SMGEdgeHasValue;
+import cz.afri.smg.graphs.SMGFactory;
+import cz.afri.smg.graphs.SMGValueFactory;
+import cz.afri.smg.graphs.WritableSMG;
+import cz.afri.smg.objects.SMGRegion;
+import cz.afri.smg.types.CPointerType;
+import cz.afri.smg.types.CType;
+
+public class SMGJoinCacheTest {
+  private static final int SIZE4 = 4;
+  private static final int SIZE8 = 8;
+  private static final CType TYPE8 = CType.createTypeWithLength(SIZE8);
+  private static final int CACHE_SIZE = 2;
+
+  private SMGJoinCache cache;
+
+  @Before
+  public final void setUp() {
+    cache = new SMGJoinCache(CACHE_SIZE);
+  }
+
+  private static WritableSMG createSMG(final String pVarName) {
+    WritableSMG smg = SMGFactory.createWritableSMG();
+    SMGRegion global = smg.addGlobalVariable(TYPE8, pVarName);
+    Integer value = SMGValueFactory.getNewValue();
+    smg.addValue(value);
+    smg.addHasValueEdge(new SMGEdgeHasValue(SIZE4, 0, global, value));
+    return smg;
+  }
+
+  private static WritableSMG createSMGWithField(final CType pFieldType) {
+    WritableSMG smg = SMGFactory.createWritableSMG();
+    SMGRegion global = smg.addGlobalVariable(TYPE8, "a");
+    Integer value = SMGValueFactory.getNewValue();
+    smg.addValue(value);
+    smg.addHasValueEdge(new SMGEdgeHasValue(pFieldType, 0, global, value));
+    return smg;
+  }
+
+  private static void assertSameResult(final SMGJoinCache.Result pResult, final SMGJoin pJoin) {
+    Assert.assertEquals(pJoin.isDefined(), pResult.isDefined());
+    Assert.assertEquals(pJoin.getStatus(), pResult.getStatus());
+  }
+
+  @Test
+  public final void hitOnIsomorphicPairTest() {
+    SMGJoinCache.Result join = cache.join(createSMG("a"), createSMG("a"));
+    Assert.assertTrue(join.isDefined());
+    Assert.assertEquals(SMGJoinStatus.EQUAL, join.getStatus());
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+
+    SMGJoinCache.Result cachedJoin = cache.join(createSMG("a"), createSMG("a"));
+    Assert.assertSame(join, cachedJoin);
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public final void repeatedHitTest() {
+    WritableSMG smg1 = createSMG("a");
+    WritableSMG smg2 = createSMG("a");
+    SMGCanonicalForm form1 = SMGCanonicalForm.of(smg1);
+    SMGCanonicalForm form2 = SMGCanonicalForm.of(smg2);
+
+    cache.join(smg1, smg2);
+    cache.join(smg1, smg2);
+    cache.join(smg1, smg2);
+    Assert.assertEquals(2, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+    // Neither the join nor the lookups replaced the forms of the unmodified SMGs
+    Assert.assertSame(form1, SMGCanonicalForm.of(smg1));
+    Assert.assertSame(form2, SMGCanonicalForm.of(smg2));
+
+    smg1.addGlobalVariable(TYPE8, "b");
+    Assert.assertFalse(cache.join(smg1, smg2).isDefined());
+    Assert.assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public final void undefinedJoinCachedTest() {
+    SMGJoinCache.Result join = cache.join(createSMG("a"), createSMG("b"));
+    Assert.assertFalse(join.isDefined());
+    Assert.assertFalse(cache.join(createSMG("a"), createSMG("b")).isDefined());
+    Assert.assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public final void orderedPairTest() {
+    WritableSMG smg1 = createSMG("a");
+    WritableSMG smg2 = createSMG("a");
+    smg2.addGlobalVariable(TYPE8, "b");
+    cache.join(smg1, smg2);
+    cache.join(smg2, smg1);
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public final void lruEvictionTest() {
+    cache.join(createSMG("a"), createSMG("a"));
+    cache.join(createSMG("b"), createSMG("b"));
+    // Use the first pair, so that the second one is the least recently used
+    cache.join(createSMG("a"), createSMG("a"));
+    cache.join(createSMG("c"), createSMG("c"));
+    Assert.assertEquals(CACHE_SIZE, cache.size());
+    Assert.assertEquals(1, cache.getHits());
+
+    cache.join(createSMG("a"), createSMG("a"));
+    Assert.assertEquals(2, cache.getHits());
+    cache.join(createSMG("b"), createSMG("b"));
+    Assert.assertEquals(2, cache.getHits());
+  }
+
+  @Test
+  public final void clearTest() {
+    cache.join(createSMG("a"), createSMG("a"));
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    cache.join(createSMG("a"), createSMG("a"));
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(2, cache.getMisses());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public final void invalidSizeTest() {
+    new SMGJoinCache(0);
+  }
+
+  @Test
+  public final void differentFieldTypesTest() {
+    WritableSMG pointerSMG1 = createSMGWithField(CPointerType.getVoidPointer());
+    WritableSMG pointerSMG2 = createSMGWithField(CPointerType.getVoidPointer());
+    WritableSMG intSMG = createSMGWithField(TYPE8);
+
+    assertSameResult(cache.join(pointerSMG1, pointerSMG2), new SMGJoin(pointerSMG1, pointerSMG2));
+    assertSameResult(cache.join(pointerSMG1, intSMG), new SMGJoin(pointerSMG1, intSMG));
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(2, cache.getMisses());
+  }
+
+  @Test
+  public final void collidingPairTest() {
+    WritableSMG smg1 = createSMG("a");
+    WritableSMG smg2 = createSMG("a");
+    WritableSMG otherSMG1 = createSMG("a");
+    WritableSMG otherSMG2 = createSMG("a");
+    SMGJoin join = new SMGJoin(smg1, smg2);
+    SMGJoin otherJoin = new SMGJoin(otherSMG1, otherSMG2);
+    // The joint SMGs consist of different values, so neither is a result for the other pair
+    Assert.assertFalse(join.getJointSMG().getValues().containsAll(otherJoin.getJointSMG().getValues()));
+
+    cache.join(smg1, smg2);
+    SMGJoinCache.Result result = cache.join(otherSMG1, otherSMG2);
+    Assert.assertEquals(1, cache.getHits());
+    assertSameResult(result, otherJoin);
+  }
+}
@@ -30,7 +30,6 @@ import org.junit.Test;
 
 import com.google.common.collect.Iterables;
 
-import cz.afri.smg.graphs.ReadableSMG;
 import cz.afri.smg.graphs.SMGEdgeHasValue;
 import cz.afri.smg.graphs.SMGEdgeHasValueFilter;
 import cz.afri.smg.graphs.SMGEdgePointsTo;
@@ -63,7 +62,7 @@ public class SMGJoinFieldsTest {
   }
 
   @Test
-	public final void getHVSetWithoutNullValuesOnObjectTest() {
+	public final void getNonNullFieldsOfObjectTest() {
     SMGRegion obj1 = new SMGRegion(SIZE8, "1");
     SMGRegion obj2 = new SMGRegion(SIZE8, "1");
 
@@ -83,12 +82,23 @@ public class SMGJoinFieldsTest {
     smg1.addHasValueEdge(obj2hv0at4);
     smg1.addHasValueEdge(obj2hv2at0);
 
-    Set<SMGEdgeHasValue> hvSet = SMGJoinFields.getHVSetWithoutNullValuesOnObject(smg1, obj1);
+    Set<SMGEdgeHasValue> hvSet = SMGJoinFields.getNonNullFieldsOfObject(smg1, obj1);
     Assert.assertTrue(hvSet.contains(obj1hv1at0));
+    Assert.assertFalse(hvSet.contains(obj1hv0at4));
+		Assert.assertEquals(1, hvSet.size());
+
+    // Fields of other objects are not included, whatever their values
+    Assert.assertFalse(hvSet.contains(obj2hv2at0));
+    Assert.assertFalse(hvSet.contains(obj2hv0at4));
+
+    hvSet = SMGJoinFields.getNonNullFieldsOfObject(smg1, obj2);
     Assert.assertTrue(hvSet.contains(obj2hv2at0));
-    Assert.assertTrue(hvSet.contains(obj2hv0at4));
-    final int expectedHVSetSize = 3;
-		Assert.assertEquals(expectedHVSetSize, hvSet.size());
+    Assert.assertFalse(hvSet.contains(obj1hv1at0));
+    Assert.assertEquals(1, hvSet.size());
+
+    // The returned set is a new one, so it may be modified
+    hvSet.add(obj1hv1at0);
+    Assert.assertEquals(1, SMGJoinFields.getNonNullFieldsOfObject(smg1, obj2).size());
   }
 
   @Test
@@ -212,9 +222,16 @@ public class SMGJoinFieldsTest {
     smg2.addPointsToEdge(new SMGEdgePointsTo(value1, obj, offset20));
     smg2.addHasValueEdge(hv666for4at28in2);
 
+    final int size3 = 3;
     final int size4 = 4;
     Set<SMGEdgeHasValue> compSet1 = SMGJoinFields.getCompatibleHVEdgeSet(smg1, smg2, obj, obj);
-    Assert.assertEquals(size4, compSet1.size());
+    Assert.assertEquals(size3, compSet1.size());
+
+    // Only fields of obj are included: the null field of another object is not
+    Assert.assertFalse(compSet1.contains(diffObjectNullValue));
+    for (SMGEdgeHasValue edge : compSet1) {
+      Assert.assertSame(obj, edge.getObject());
+    }
 
     Set<SMGEdgeHasValue> compSet2 = SMGJoinFields.getCompatibleHVEdgeSet(smg2, smg1, obj, obj);
     Assert.assertEquals(size4, compSet2.size());
@@ -277,18 +294,16 @@ public class SMGJoinFieldsTest {
     smg1.addValue(value1);
     smg1.addHasValueEdge(new SMGEdgeHasValue(MOCKTYPE4, 0, obj1, value1));
 
-    SMGJoinFields jf = new SMGJoinFields(SMGFactory.createWritableCopy(smg1), SMGFactory.createWritableCopy(smg2), obj1,
-    		                                 obj2);
-    ReadableSMG resultSMG = jf.getSMG2();
-
-    Iterable<SMGEdgeHasValue> edges = resultSMG.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2));
-    Assert.assertTrue(edges.iterator().hasNext());
+    SMGJoinFields jf = new SMGJoinFields(smg1, smg2, obj1, obj2);
+    SMGEdgeHasValue edge = Iterables.getOnlyElement(jf.getFields2());
+    Assert.assertSame(obj2, edge.getObject());
 
-    jf = new SMGJoinFields(SMGFactory.createWritableCopy(smg2), SMGFactory.createWritableCopy(smg1), obj2, obj1);
-    resultSMG = jf.getSMG1();
+    jf = new SMGJoinFields(smg2, smg1, obj2, obj1);
+    edge = Iterables.getOnlyElement(jf.getFields1());
+    Assert.assertSame(obj2, edge.getObject());
 
-    edges = resultSMG.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2));
-    Assert.assertTrue(edges.iterator().hasNext());
+    // The SMGs themselves are not modified
+    Assert.assertFalse(smg2.getHVEdges(SMGEdgeHasValueFilter.objectFilter(obj2)).iterator().hasNext());
   }
 
   @Test
@@ -46,6 +46,8 @@ public class SMGJoinMapTargetAddressTest {
   private final SMGEdgePointsTo edge1 = new SMGEdgePointsTo(value1, obj1, 0);
 
   private final Integer value2 = SMGValueFactory.getNewValue();
+  private final Integer value3 = SMGValueFactory.getNewValue();
+  private final Integer value4 = SMGValueFactory.getNewValue();
 
   private final SMGObject destObj = new SMGRegion(8, "destination");
   private final Integer destValue = SMGValueFactory.getNewValue();
@@ -92,7 +94,7 @@ public class SMGJoinMapTargetAddressTest {
     Assert.assertTrue(origDestSMG.isIdenticalTo(mta.getSMG()));
     Assert.assertEquals(origMapping1, mta.getMapping1());
     Assert.assertNull(mta.getMapping2());
-    Assert.assertSame(destValue, mta.getValue());
+    Assert.assertEquals(destValue, mta.getValue());
   }
 
   @Test
@@ -120,7 +122,52 @@ public class SMGJoinMapTargetAddressTest {
     Assert.assertSame(destObj, newEdge.getObject());
     Assert.assertEquals(0, newEdge.getOffset());
 
-    Assert.assertSame(mta.getValue(), mta.getMapping1().get(value1));
-    Assert.assertSame(mta.getValue(), mta.getMapping2().get(value2));
+    Assert.assertEquals(mta.getValue(), mta.getMapping1().get(value1));
+    Assert.assertEquals(mta.getValue(), mta.getMapping2().get(value2));
+  }
+
+  @Test
+  public final void mapTargetAddressReused() {
+    SMGEdgePointsTo edge3 = new SMGEdgePointsTo(value3, obj1, 0);
+    smg1.addValue(value1);
+    smg1.addValue(value3);
+    smg1.addHeapObject(obj1);
+    smg1.addPointsToEdge(edge1);
+    smg1.addPointsToEdge(edge3);
+
+    destSMG.addHeapObject(destObj);
+
+    mapping1.map(obj1, destObj);
+
+    SMGJoinMapTargetAddress first = new SMGJoinMapTargetAddress(smg1, null, destSMG, mapping1, mapping2, value1,
+                                                                value2);
+    SMGJoinMapTargetAddress second = new SMGJoinMapTargetAddress(smg1, null, destSMG, mapping1, mapping2, value3,
+                                                                 value4);
+    Assert.assertEquals(first.getValue(), second.getValue());
+    Assert.assertEquals(1, destSMG.getPTEdgesToObject(destObj).size());
+  }
+
+  @Test
+  public final void mapTargetAddressCheckOnly() {
+    SMGEdgePointsTo edge3 = new SMGEdgePointsTo(value3, obj1, 0);
+    smg1.addValue(value1);
+    smg1.addValue(value3);
+    smg1.addHeapObject(obj1);
+    smg1.addPointsToEdge(edge1);
+    smg1.addPointsToEdge(edge3);
+
+    mapping1.map(obj1, destObj);
+
+    SMGJoinMapTargetAddress first = new SMGJoinMapTargetAddress(smg1, null, null, mapping1, mapping2, value1,
+                                                                value2, true);
+    Assert.assertNull(first.getSMG());
+    Assert.assertEquals(value1, first.getValue());
+    Assert.assertEquals(value1, mapping1.get(value1));
+    Assert.assertEquals(value1, mapping2.get(value2));
+    Assert.assertEquals(value1, mapping1.getAddress(destObj, 0));
+
+    SMGJoinMapTargetAddress second = new SMGJoinMapTargetAddress(smg1, null, null, mapping1, mapping2, value3,
+                                                                 value4, true);
+    Assert.assertEquals(value1, second.getValue());
   }
 }
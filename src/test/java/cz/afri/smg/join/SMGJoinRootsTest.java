@@ -0,0 +1,138 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.join;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import cz.afri.smg.graphs.SMGEdgeHasValue;
+import cz.afri.smg.graphs.SMGEdgePointsTo;
+import cz.afri.smg.graphs.SMGFactory;
+import cz.afri.smg.graphs.SMGValueFactory;
+import cz.afri.smg.graphs.WritableSMG;
+import cz.afri.smg.objects.SMGObject;
+import cz.afri.smg.objects.SMGRegion;
+import cz.afri.smg.types.CType;
+
+public class SMGJoinRootsTest {
+  private static final int SIZE8 = 8;
+  private static final int OFFSET4 = 4;
+  private static final CType TYPE8 = CType.createTypeWithLength(SIZE8);
+
+  private WritableSMG smg1;
+  private WritableSMG smg2;
+  private SMGRegion a1;
+  private SMGRegion a2;
+  private SMGRegion b1;
+  private SMGRegion b2;
+  private List<SMGJoinRoots.Root> roots;
+
+  @Before
+  public final void setUp() {
+    smg1 = SMGFactory.createWritableSMG();
+    smg2 = SMGFactory.createWritableSMG();
+    a1 = smg1.addGlobalVariable(TYPE8, "a");
+    a2 = smg2.addGlobalVariable(TYPE8, "a");
+    b1 = smg1.addGlobalVariable(TYPE8, "b");
+    b2 = smg2.addGlobalVariable(TYPE8, "b");
+    roots = ImmutableList.of(new SMGJoinRoots.Root(a1, a2, null), new SMGJoinRoots.Root(b1, b2, null));
+  }
+
+  // Testing condition: stores a new pointer to the object at the offset in the variable
+  private void addPointer(final WritableSMG pSMG, final SMGRegion pVariable, final SMGObject pObject,
+                          final int pOffset) {
+    Integer value = SMGValueFactory.getNewValue();
+    pSMG.addValue(value);
+    pSMG.addPointsToEdge(new SMGEdgePointsTo(value, pObject, pOffset));
+    pSMG.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, pVariable, value));
+  }
+
+  // Testing condition: adds a new heap object
+  private SMGRegion addHeapObject(final WritableSMG pSMG) {
+    SMGRegion object = new SMGRegion(SIZE8, "heap");
+    pSMG.addHeapObject(object);
+    return object;
+  }
+
+  @Test
+  public final void disjointRootsTest() {
+    addPointer(smg1, a1, addHeapObject(smg1), 0);
+    addPointer(smg1, b1, addHeapObject(smg1), 0);
+    addPointer(smg2, a2, addHeapObject(smg2), 0);
+    addPointer(smg2, b2, addHeapObject(smg2), 0);
+
+    List<List<SMGJoinRoots.Root>> partitions = SMGJoinRoots.partition(smg1, smg2, roots);
+    Assert.assertEquals(2, partitions.size());
+    Assert.assertEquals(ImmutableList.of(roots.get(0)), partitions.get(0));
+    Assert.assertEquals(ImmutableList.of(roots.get(1)), partitions.get(1));
+  }
+
+  @Test
+  public final void sharedObjectTest() {
+    addPointer(smg1, a1, addHeapObject(smg1), 0);
+    addPointer(smg1, b1, addHeapObject(smg1), 0);
+
+    // The roots are disjoint in the first SMG only
+    SMGRegion shared = addHeapObject(smg2);
+    addPointer(smg2, a2, shared, 0);
+    addPointer(smg2, b2, shared, 0);
+
+    List<List<SMGJoinRoots.Root>> partitions = SMGJoinRoots.partition(smg1, smg2, roots);
+    Assert.assertEquals(1, partitions.size());
+    Assert.assertEquals(roots, partitions.get(0));
+  }
+
+  @Test
+  public final void pointerToRootTest() {
+    addPointer(smg1, a1, b1, 0);
+
+    Assert.assertEquals(1, SMGJoinRoots.partition(smg1, smg2, roots).size());
+  }
+
+  @Test
+  public final void sharedValueTest() {
+    Integer value = SMGValueFactory.getNewValue();
+    smg1.addValue(value);
+    smg1.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, a1, value));
+    smg1.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, b1, value));
+
+    Assert.assertEquals(1, SMGJoinRoots.partition(smg1, smg2, roots).size());
+  }
+
+  @Test
+  public final void nullTest() {
+    smg1.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, a1, smg1.getNullValue()));
+    smg1.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, b1, smg1.getNullValue()));
+    Assert.assertEquals(2, SMGJoinRoots.partition(smg1, smg2, roots).size());
+
+
+    // Both roots reach the same address of the null object, which the join creates
+    addPointer(smg2, a2, smg2.getNullObject(), OFFSET4);
+    addPointer(smg2, b2, smg2.getNullObject(), OFFSET4);
+    Assert.assertEquals(1, SMGJoinRoots.partition(smg1, smg2, roots).size());
+  }
+}
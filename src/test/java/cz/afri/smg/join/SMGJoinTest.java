@@ -21,17 +21,23 @@
  */
 package cz.afri.smg.join;
 
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 
 import cz.afri.smg.graphs.ReadableSMG;
 import cz.afri.smg.graphs.SMGEdgeHasValue;
 import cz.afri.smg.graphs.SMGEdgeHasValueFilter;
+import cz.afri.smg.graphs.SMGEdgePointsTo;
 import cz.afri.smg.graphs.SMGFactory;
 import cz.afri.smg.graphs.SMGValueFactory;
+import cz.afri.smg.graphs.SMGValues.SMGKnownExpValue;
+import cz.afri.smg.graphs.SMGValues.SMGKnownSymValue;
 import cz.afri.smg.graphs.WritableSMG;
 import cz.afri.smg.objects.SMGObject;
 import cz.afri.smg.objects.SMGRegion;
@@ -47,6 +53,7 @@ public class SMGJoinTest {
 
   private static final int SIZE8 = 8;
   private static final CType TYPE8 = CType.createTypeWithLength(SIZE8);
+  private static final int LONG_LIST_LENGTH = 100000;
 
   private WritableSMG smg1;
   private WritableSMG smg2;
@@ -177,6 +184,135 @@ public class SMGJoinTest {
     Assert.assertTrue(resultSMG.getValues().contains(Integer.valueOf(resultSMG.getUniqueHV(filter, true).getValue())));
   }
 
+  @Test
+  public final void differentGlobalsTest() {
+    addGlobalWithoutValueToBoth("common");
+    smg1.addGlobalVariable(TYPE8, "onlyInFirst");
+    Assert.assertFalse(SMGJoin.haveMatchingVariables(smg1, smg2));
+    SMGJoin join = new SMGJoin(smg1, smg2);
+    Assert.assertFalse(join.isDefined());
+    Assert.assertNotNull(join.getJointSMG());
+  }
+
+  @Test
+  public final void differentLocalsTest() {
+    smg1.addStackFrame(FUNCTION_DECLARATION);
+    smg2.addStackFrame(FUNCTION_DECLARATION);
+    addLocalWithoutValueToBoth("common");
+    smg2.addLocalVariable(TYPE8, "onlyInSecond");
+    Assert.assertFalse(SMGJoin.haveMatchingVariables(smg1, smg2));
+    Assert.assertFalse(new SMGJoin(smg1, smg2).isDefined());
+  }
+
+  @Test
+  public final void differentStackDepthMatchingTest() {
+    smg1.addStackFrame(FUNCTION_DECLARATION);
+    smg2.addStackFrame(FUNCTION_DECLARATION);
+    addLocalWithoutValueToBoth("common");
+    smg1.addStackFrame(FUNCTION_DECLARATION);
+    smg1.addLocalVariable(TYPE8, "onlyInFirst");
+    Assert.assertTrue(SMGJoin.haveMatchingVariables(smg1, smg2));
+  }
+
+  // Testing condition: adds a singly linked list of the given length, pointed by a global variable
+  private void addList(final WritableSMG pSMG, final int pLength, final String pVarName) {
+    Integer next = pSMG.getNullValue();
+    for (int i = 0; i < pLength; i++) {
+      SMGRegion node = new SMGRegion(SIZE8, "node");
+      pSMG.addHeapObject(node);
+      pSMG.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, node, next));
+      next = SMGValueFactory.getNewValue();
+      pSMG.addValue(next);
+      pSMG.addPointsToEdge(new SMGEdgePointsTo(next, node, 0));
+    }
+    SMGRegion head = pSMG.addGlobalVariable(TYPE8, pVarName);
+    pSMG.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, head, next));
+  }
+
+  @Test
+  public final void longListJoinTest() {
+    addList(smg1, LONG_LIST_LENGTH, "head");
+    addList(smg2, LONG_LIST_LENGTH, "head");
+
+    SMGJoin join = new SMGJoin(smg1, smg2);
+    Assert.assertTrue(join.isDefined());
+    Assert.assertEquals(SMGJoinStatus.EQUAL, join.getStatus());
+    // The heap of the joint SMG contains the null object too
+    assertObjectCounts(join.getJointSMG(), 1, LONG_LIST_LENGTH + 1, 0);
+  }
+
+  @Test
+  public final void checkOnlyJoinTest() {
+    final int listLength = 3;
+    addList(smg1, listLength, "head");
+    addList(smg2, listLength, "head");
+    smg1.addStackFrame(FUNCTION_DECLARATION);
+    smg2.addStackFrame(FUNCTION_DECLARATION);
+    addLocalWithoutValueToBoth("local");
+
+    SMGJoin join = new SMGJoin(smg1, smg2, true);
+    Assert.assertTrue(join.isDefined());
+    Assert.assertEquals(new SMGJoin(smg1, smg2).getStatus(), join.getStatus());
+
+    // No joint SMG was built: the one returned is empty
+    ReadableSMG jointSMG = join.getJointSMG();
+    assertObjectCounts(jointSMG, 0, 1, 0);
+    Assert.assertEquals(1, jointSMG.getValues().size());
+    Assert.assertFalse(jointSMG.getHVEdges().iterator().hasNext());
+  }
+
+  @Test
+  public final void parallelJoinTest() {
+    final int globals = 8;
+    final int listLength = 3;
+    for (int i = 0; i < globals; i++) {
+      addList(smg1, listLength, "list" + i);
+      addList(smg2, listLength, "list" + i);
+    }
+    // The only difference makes the first SMG more general
+    Integer value = SMGValueFactory.getNewValue();
+    smg2.addValue(value);
+    smg2.putExplicit(SMGKnownSymValue.valueOf(value), SMGKnownExpValue.ONE);
+    smg2.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, smg2.addGlobalVariable(TYPE8, "explicit"), value));
+    smg1.addHasValueEdge(new SMGEdgeHasValue(TYPE8, 0, smg1.addGlobalVariable(TYPE8, "explicit"), value));
+    smg1.addValue(value);
+
+    SMGJoin sequential = new SMGJoin(smg1, smg2);
+    ForkJoinPool pool = new ForkJoinPool();
+    SMGJoin parallel;
+    try {
+      parallel = new SMGJoin(smg1, smg2, pool);
+    } finally {
+      pool.shutdown();
+    }
+
+    Assert.assertTrue(parallel.isDefined());
+    Assert.assertEquals(SMGJoinStatus.LEFT_ENTAIL, parallel.getStatus());
+    Assert.assertEquals(sequential.getStatus(), parallel.getStatus());
+
+    ReadableSMG sequentialSMG = sequential.getJointSMG();
+    ReadableSMG parallelSMG = parallel.getJointSMG();
+    assertObjectCounts(parallelSMG, globals + 1, globals * listLength + 1, 0);
+    Assert.assertEquals(sequentialSMG.getValues().size(), parallelSMG.getValues().size());
+    Assert.assertEquals(Iterables.size(sequentialSMG.getHVEdges()), Iterables.size(parallelSMG.getHVEdges()));
+    Assert.assertEquals(Iterables.size(sequentialSMG.getPTEdges()), Iterables.size(parallelSMG.getPTEdges()));
+  }
+
+  @Test
+  public final void parallelJoinUndefinedTest() {
+    addList(smg1, 1, "first");
+    addList(smg2, 1, "first");
+    addList(smg1, 1, "second");
+    addList(smg2, 2, "second");
+
+    ForkJoinPool pool = new ForkJoinPool();
+    try {
+      Assert.assertFalse(new SMGJoin(smg1, smg2, pool).isDefined());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
   private void joinUpdateUnit(final SMGJoinStatus firstOperand, final SMGJoinStatus forLe, final SMGJoinStatus forRe) {
     Assert.assertEquals(firstOperand, SMGJoinStatus.updateStatus(firstOperand, SMGJoinStatus.EQUAL));
     Assert.assertEquals(forLe, SMGJoinStatus.updateStatus(firstOperand, SMGJoinStatus.LEFT_ENTAIL));
@@ -0,0 +1,113 @@
+/*
+ *  This file is part of SMG, a symbolic memory graph Java library
+ *  Originally developed as part of CPAChecker, the configurable software verification platform
+ *
+ *  Copyright (C) 2011-2015  Petr Muller
+ *  Copyright (C) 2007-2014  Dirk Beyer
+ *  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ */
+package cz.afri.smg.join;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import cz.afri.smg.objects.SMGObject;
+import cz.afri.smg.objects.SMGRegion;
+
+public class SMGNodeMappingTest {
+  private static final int SIZE8 = 8;
+  private static final int VALUE1 = 1;
+  private static final int VALUE2 = 2;
+  private static final int JOINT_VALUE1 = 11;
+  private static final int JOINT_VALUE2 = 12;
+  private static final int UNMAPPED = -1;
+
+  private SMGNodeMapping mapping;
+  private final SMGObject object1 = new SMGRegion(SIZE8, "object1");
+  private final SMGObject object2 = new SMGRegion(SIZE8, "object2");
+  private final SMGObject joint1 = new SMGRegion(SIZE8, "joint1");
+  private final SMGObject joint2 = new SMGRegion(SIZE8, "joint2");
+
+  @Before
+  public final void setUp() {
+    mapping = new SMGNodeMapping();
+  }
+
+  @Test
+  public final void objectReverseLookupTest() {
+    Assert.assertFalse(mapping.containsValue(joint1));
+    mapping.map(object1, joint1);
+    mapping.map(object2, joint1);
+    Assert.assertTrue(mapping.containsValue(joint1));
+    Assert.assertFalse(mapping.containsValue(object1));
+
+    // Remapping keeps the object mapped to as long as another key maps to it
+    mapping.map(object1, joint2);
+    Assert.assertTrue(mapping.containsValue(joint1));
+    Assert.assertTrue(mapping.containsValue(joint2));
+    mapping.map(object2, joint2);
+    Assert.assertFalse(mapping.containsValue(joint1));
+    Assert.assertSame(joint2, mapping.get(object2));
+  }
+
+  @Test
+  public final void valueMappingTest() {
+    Assert.assertFalse(mapping.containsKey(VALUE1));
+    Assert.assertNull(mapping.get(Integer.valueOf(VALUE1)));
+    Assert.assertEquals(UNMAPPED, mapping.get(VALUE1, UNMAPPED));
+
+    mapping.map(VALUE1, JOINT_VALUE1);
+    Assert.assertTrue(mapping.containsKey(VALUE1));
+    Assert.assertTrue(mapping.containsValue(JOINT_VALUE1));
+    Assert.assertFalse(mapping.containsValue(VALUE1));
+    Assert.assertEquals(JOINT_VALUE1, mapping.get(VALUE1, UNMAPPED));
+    Assert.assertEquals(Integer.valueOf(JOINT_VALUE1), mapping.get(Integer.valueOf(VALUE1)));
+
+    mapping.map(VALUE1, JOINT_VALUE2);
+    Assert.assertFalse(mapping.containsValue(JOINT_VALUE1));
+    Assert.assertTrue(mapping.containsValue(JOINT_VALUE2));
+  }
+
+  @Test
+  public final void copyTest() {
+    mapping.map(object1, joint1);
+    mapping.map(VALUE1, JOINT_VALUE1);
+    SMGNodeMapping copy = new SMGNodeMapping(mapping);
+    Assert.assertEquals(mapping, copy);
+
+    copy.map(object1, joint2);
+    copy.map(VALUE2, JOINT_VALUE2);
+    Assert.assertTrue(mapping.containsValue(joint1));
+    Assert.assertFalse(mapping.containsValue(joint2));
+    Assert.assertFalse(mapping.containsValue(JOINT_VALUE2));
+    Assert.assertFalse(copy.containsValue(joint1));
+  }
+
+  @Test
+  public final void addressTest() {
+    Assert.assertNull(mapping.getAddress(joint1, 0));
+    mapping.addAddress(joint1, 0, JOINT_VALUE1);
+    Assert.assertEquals(Integer.valueOf(JOINT_VALUE1), mapping.getAddress(joint1, 0));
+    Assert.assertNull(mapping.getAddress(joint1, SIZE8));
+    Assert.assertNull(mapping.getAddress(joint2, 0));
+
+    SMGNodeMapping copy = new SMGNodeMapping(mapping);
+    copy.addAddress(joint1, SIZE8, JOINT_VALUE2);
+    Assert.assertEquals(Integer.valueOf(JOINT_VALUE1), copy.getAddress(joint1, 0));
+    Assert.assertNull(mapping.getAddress(joint1, SIZE8));
+  }
+}